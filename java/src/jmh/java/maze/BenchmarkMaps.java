@@ -0,0 +1,54 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Shared fixtures for the benchmarks: configs built from JMH parameters and grid snapshots. */
+final class BenchmarkMaps {
+    static final long SEED = 42L;
+
+    private BenchmarkMaps() {}
+
+    static MazeConfig config(int size, String roomSize, double coverage, String algorithm) {
+        return config(size, roomSize, coverage, algorithm, RouterMode.LSHAPE);
+    }
+
+    static MazeConfig config(int size, String roomSize, double coverage, String algorithm, RouterMode router) {
+        return config(size, roomSize, coverage, algorithm, router, RngMode.LEGACY);
+    }
+
+    static MazeConfig config(int size, String roomSize, double coverage, String algorithm, RouterMode router, RngMode rng) {
+        // roomSize is "min-max", applied to both room dimensions.
+        int dash = roomSize.indexOf('-');
+        int min = Integer.parseInt(roomSize.substring(0, dash));
+        int max = Integer.parseInt(roomSize.substring(dash + 1));
+        return MazeConfig.builder().width(size).height(size).minRoomWidth(min).minRoomHeight(min).maxRoomWidth(max)
+                .maxRoomHeight(max).coverage(coverage).algorithm(algorithm).seed(SEED).router(router).rng(rng).build();
+    }
+
+    static AbstractRoomMazeGenerator generator(String algorithm) {
+        return switch (algorithm) {
+            case "rooms_and_corridors" -> new RoomsAndCorridorsGenerator();
+            case "closest_wall" -> new ClosestWallConnectorGenerator();
+            default -> throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        };
+    }
+
+    static long target(MazeConfig config) {
+        return (long) (config.area() * config.coverage);
+    }
+
+    static TileGrid copy(TileGrid grid) {
+        TileGrid copy = new TileGrid(grid.width(), grid.height());
+        for (int y = 0; y < grid.height(); y++) {
+            grid.copyRow(y, copy, 0, y);
+        }
+        return copy;
+    }
+
+    static GenerationContext context(MazeConfig config, TileGrid grid, List<Room> rooms) {
+        // A fresh context over a copy of a snapshot, with the RNG rewound to the same seed every time.
+        return new GenerationContext(config, copy(grid), new ArrayList<>(rooms), new Random(SEED));
+    }
+}
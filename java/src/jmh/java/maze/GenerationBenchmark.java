@@ -0,0 +1,80 @@
+package maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation phases measured one at a time on fixed-seed layouts.
+ *
+ * <p>Each phase starts from a snapshot of the grid as the previous phase left it, copied per
+ * invocation so every call does the same work; the copy is excluded from the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenerationBenchmark {
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"2-20", "10-80"})
+    public String roomSize;
+
+    @Param({"0.3", "0.6"})
+    public double coverage;
+
+    @Param({"rooms_and_corridors", "closest_wall"})
+    public String algorithm;
+
+    private AbstractRoomMazeGenerator generator;
+    private MazeConfig config;
+    private GenerationContext placed;
+    private GenerationContext connected;
+    private long placedFilled;
+    private long connectedFilled;
+
+    private GenerationContext placeInput;
+    private GenerationContext connectInput;
+    private GenerationContext pruneInput;
+
+    @Setup(Level.Trial)
+    public void layout() {
+        generator = BenchmarkMaps.generator(algorithm);
+        config = BenchmarkMaps.config(size, roomSize, coverage, algorithm);
+        placed = generator.newContext(config);
+        placedFilled = generator.placeRooms(placed, BenchmarkMaps.target(config));
+        connected = BenchmarkMaps.context(config, placed.grid, placed.rooms);
+        connectedFilled = generator.connectRooms(connected, placedFilled);
+    }
+
+    @Setup(Level.Invocation)
+    public void snapshot() {
+        placeInput = generator.newContext(config);
+        connectInput = BenchmarkMaps.context(config, placed.grid, placed.rooms);
+        pruneInput = BenchmarkMaps.context(config, connected.grid, connected.rooms);
+        pruneInput.frontier.pushAll(connected.frontier);
+    }
+
+    @Benchmark
+    public long placeRooms() {
+        return generator.placeRooms(placeInput, BenchmarkMaps.target(config));
+    }
+
+    @Benchmark
+    public long connectRooms() {
+        return generator.connectRooms(connectInput, placedFilled);
+    }
+
+    @Benchmark
+    public long pruneDeadEnds() {
+        return generator.pruneDeadEnds(pruneInput, connectedFilled);
+    }
+}
@@ -0,0 +1,71 @@
+package maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Spanning tree construction and room graph export over the rooms of a fixed-seed layout. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GraphBenchmark {
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"2-20", "10-80"})
+    public String roomSize;
+
+    @Param({"0.3", "0.6"})
+    public double coverage;
+
+    private List<Room> rooms;
+    private List<int[]> edges;
+    private Path dot;
+    private Path binary;
+
+    @Setup(Level.Trial)
+    public void layout() throws IOException {
+        MazeConfig config = BenchmarkMaps.config(size, roomSize, coverage, "rooms_and_corridors");
+        AbstractRoomMazeGenerator generator = new RoomsAndCorridorsGenerator();
+        GenerationContext ctx = generator.newContext(config);
+        generator.placeRooms(ctx, BenchmarkMaps.target(config));
+        rooms = ctx.rooms;
+        edges = GraphUtil.buildRoomMst(rooms);
+        dot = Files.createTempFile("maze-bench", ".dot");
+        binary = Files.createTempFile("maze-bench", ".graph");
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(dot);
+        Files.deleteIfExists(binary);
+    }
+
+    @Benchmark
+    public List<int[]> buildRoomMst() {
+        return GraphUtil.buildRoomMst(rooms);
+    }
+
+    @Benchmark
+    public void writeGraphviz() throws IOException {
+        GraphUtil.writeGraphviz(rooms, edges, dot.toString());
+    }
+
+    @Benchmark
+    public void writeBinary() throws IOException {
+        GraphExporter.write(rooms, edges, binary, GraphFormat.BINARY);
+    }
+}
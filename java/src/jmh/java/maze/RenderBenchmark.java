@@ -0,0 +1,57 @@
+package maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** PNG rendering of a finished fixed-seed maze with each renderer. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RenderBenchmark {
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"2-20", "10-80"})
+    public String roomSize;
+
+    @Param({"0.3", "0.6"})
+    public double coverage;
+
+    @Param({"imageio", "indexed", "streaming"})
+    public String renderer;
+
+    private TileGrid grid;
+    private RenderMode mode;
+    private Path png;
+
+    @Setup(Level.Trial)
+    public void layout() throws IOException {
+        MazeConfig config = BenchmarkMaps.config(size, roomSize, coverage, "rooms_and_corridors");
+        grid = new RoomsAndCorridorsGenerator().generate(config).grid;
+        mode = RenderMode.fromName(renderer);
+        png = Files.createTempFile("maze-bench", ".png");
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(png);
+    }
+
+    @Benchmark
+    public void renderPng() throws IOException {
+        MazeRenderer.renderPng(grid, png.toString(), mode);
+    }
+}
@@ -0,0 +1,61 @@
+package maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legacy sequential Random against keyed counter-based draws: the raw draw pattern of a room
+ * attempt, and random placement end to end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RngBenchmark {
+    private static final int ATTEMPTS = 10_000;
+
+    @Param({"legacy", "counter"})
+    public String rng;
+
+    private MazeConfig config;
+    private GenerationContext draws;
+    private GenerationContext placeInput;
+    private final AbstractRoomMazeGenerator generator = new RoomsAndCorridorsGenerator();
+
+    @Setup(Level.Trial)
+    public void layout() {
+        config = BenchmarkMaps.config(1024, "2-20", 0.6, "rooms_and_corridors", RouterMode.LSHAPE, RngMode.fromName(rng));
+        draws = new GenerationContext(config, new TileGrid(1, 1), new ArrayList<>(),
+                AbstractRoomMazeGenerator.newRandom(BenchmarkMaps.SEED, config.rng));
+    }
+
+    @Setup(Level.Invocation)
+    public void snapshot() {
+        placeInput = generator.newContext(config);
+    }
+
+    @Benchmark
+    public long attemptDraws() {
+        // Four bounded draws per attempt, as in random placement.
+        long sum = 0;
+        for (int i = 0; i < ATTEMPTS; i++) {
+            var random = draws.random(CounterRandom.ROOM_ATTEMPT, i);
+            sum += random.nextInt(19) + random.nextInt(19) + random.nextInt(1005) + random.nextInt(1005);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long placeRooms() {
+        return generator.placeRooms(placeInput, BenchmarkMaps.target(config));
+    }
+}
@@ -0,0 +1,60 @@
+package maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corridor carving alone: every spanning-tree edge of a fixed layout, routed with each router.
+ *
+ * <p>The tree is built once per trial and the grid copied per invocation, so only the routing
+ * and carving are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RouterBenchmark {
+    @Param({"1024", "4096"})
+    public int size;
+
+    @Param({"lshape", "astar"})
+    public String router;
+
+    private AbstractRoomMazeGenerator generator;
+    private MazeConfig config;
+    private GenerationContext placed;
+    private List<int[]> edges;
+    private GenerationContext input;
+
+    @Setup(Level.Trial)
+    public void layout() {
+        generator = BenchmarkMaps.generator("rooms_and_corridors");
+        config = BenchmarkMaps.config(size, "3-12", 0.3, "rooms_and_corridors", RouterMode.fromName(router));
+        placed = generator.newContext(config);
+        generator.placeRooms(placed, BenchmarkMaps.target(config));
+        edges = GraphUtil.buildRoomMst(placed.rooms);
+    }
+
+    @Setup(Level.Invocation)
+    public void snapshot() {
+        input = BenchmarkMaps.context(config, placed.grid, placed.rooms);
+    }
+
+    @Benchmark
+    public int routeAll() {
+        int filled = 0;
+        for (int[] e : edges) {
+            filled += generator.connectPair(input, input.rooms.get(e[0]), input.rooms.get(e[1]));
+        }
+        return filled;
+    }
+}
@@ -0,0 +1,136 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Routes corridors with A* over the packed tile grid.
+ *
+ * <p>Room tiles are walls, existing hallway tiles cost less than empty ones so new corridors
+ * merge into the network instead of running beside it, and the heuristic is the Manhattan
+ * distance at the empty-tile cost. That makes the search weighted A*: routes are not always
+ * the cheapest, but the search heads straight for the target and only spreads where rooms or
+ * cheaper hallways pull it aside. Each search is confined to the bounding box of its two
+ * points plus a margin; if that box has no path, one retry uses a margin wide enough to get
+ * around the largest room.
+ *
+ * <p>All search state lives in primitive arrays reused across routes and only grown when a
+ * larger box comes along. Visited nodes are told apart by a per-route stamp instead of
+ * clearing. One router per {@link GenerationContext}, so it is never shared between threads.
+ */
+public final class AStarRouter {
+    static final int EMPTY_COST = 2;
+    static final int HALLWAY_COST = 1;
+    private static final int MARGIN = 16;
+    private static final int ROOM = Tile.ROOM.ordinal();
+    private static final int HALLWAY = Tile.HALLWAY.ordinal();
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    private int[] cost = new int[0];
+    private int[] stamp = new int[0];
+    private byte[] from = new byte[0];
+    private final LongHeap open = new LongHeap(256);
+    private int route;
+    // Search box of the last search, in map coordinates.
+    private int boxX0;
+    private int boxY0;
+    private int boxW;
+
+    public int route(GenerationContext ctx, long start, long end, int width) {
+        // Carve a corridor from start to end and return the newly filled tiles, or -1 if rooms
+        // cut the two points off from each other within the search box.
+        int found = search(ctx.grid, start, end, MARGIN);
+        if (found < 0) {
+            int detour = detourMargin(ctx.config);
+            if (detour > MARGIN) found = search(ctx.grid, start, end, detour);
+        }
+        return found < 0 ? -1 : carve(ctx, start, end, width);
+    }
+
+    static int searchMargin(MazeConfig config) {
+        // How far outside the box of its two end points a route may run.
+        return Math.max(MARGIN, detourMargin(config));
+    }
+
+    private static int detourMargin(MazeConfig config) {
+        return Math.max(config.maxRoomWidth, config.maxRoomHeight) + 2;
+    }
+
+    private int search(TileGrid grid, long start, long end, int margin) {
+        int sx = TileGrid.unpackX(start), sy = TileGrid.unpackY(start);
+        int ex = TileGrid.unpackX(end), ey = TileGrid.unpackY(end);
+        boxX0 = Math.max(Math.min(sx, ex) - margin, 0);
+        boxY0 = Math.max(Math.min(sy, ey) - margin, 0);
+        int boxX1 = Math.min(Math.max(sx, ex) + margin, grid.width() - 1);
+        int boxY1 = Math.min(Math.max(sy, ey) + margin, grid.height() - 1);
+        boxW = boxX1 - boxX0 + 1;
+        int boxH = boxY1 - boxY0 + 1;
+        int nodes = boxW * boxH;
+        if (nodes > stamp.length) {
+            cost = new int[nodes];
+            stamp = new int[nodes];
+            from = new byte[nodes];
+            route = 0;
+        }
+        if (++route == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            route = 1;
+        }
+
+        int target = (ey - boxY0) * boxW + (ex - boxX0);
+        int source = (sy - boxY0) * boxW + (sx - boxX0);
+        open.clear();
+        cost[source] = 0;
+        stamp[source] = route;
+        open.push(((long) EMPTY_COST * (Math.abs(ex - sx) + Math.abs(ey - sy)) << 32) | source);
+        while (!open.isEmpty()) {
+            long top = open.pop();
+            int node = (int) top;
+            int x = node % boxW;
+            int y = node / boxW;
+            int g = cost[node];
+            // Entries superseded by a cheaper path to the same node are skipped.
+            if ((int) (top >>> 32) != g + EMPTY_COST * (Math.abs(ex - boxX0 - x) + Math.abs(ey - boxY0 - y))) continue;
+            if (node == target) return g;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx < 0 || nx >= boxW || ny < 0 || ny >= boxH) continue;
+                int next = ny * boxW + nx;
+                int code = grid.code(boxX0 + nx, boxY0 + ny);
+                if (code == ROOM && next != target) continue;
+                int ng = g + (code == HALLWAY ? HALLWAY_COST : EMPTY_COST);
+                if (stamp[next] == route && cost[next] <= ng) continue;
+                stamp[next] = route;
+                cost[next] = ng;
+                from[next] = (byte) d;
+                int h = EMPTY_COST * (Math.abs(ex - boxX0 - nx) + Math.abs(ey - boxY0 - ny));
+                open.push(((long) (ng + h) << 32) | next);
+            }
+        }
+        return -1;
+    }
+
+    private int carve(GenerationContext ctx, long start, long end, int width) {
+        // Walk back from the target along the recorded steps, carving a width x width square per
+        // step. Inner path tiles always keep two carved neighbours, so only the two ends can be
+        // dead ends; queue them for pruning.
+        TileGrid grid = ctx.grid;
+        int x = TileGrid.unpackX(end) - boxX0;
+        int y = TileGrid.unpackY(end) - boxY0;
+        int sx = TileGrid.unpackX(start) - boxX0;
+        int sy = TileGrid.unpackY(start) - boxY0;
+        int half = width / 2;
+        int filled = 0;
+        while (true) {
+            filled += (int) grid.fillEmpty(boxX0 + x - half, boxY0 + y - half, width, width, Tile.HALLWAY);
+            if (x == sx && y == sy) break;
+            int d = from[y * boxW + x];
+            x -= DX[d];
+            y -= DY[d];
+        }
+        ctx.frontier.push(start);
+        ctx.frontier.push(end);
+        return filled;
+    }
+}
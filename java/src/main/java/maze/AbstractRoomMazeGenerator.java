@@ -1,141 +1,219 @@
 package maze;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public abstract class AbstractRoomMazeGenerator implements MazeGenerator {
-    protected final Random random = new Random();
+    private static final int ROOM = Tile.ROOM.ordinal();
+    private static final int HALLWAY = Tile.HALLWAY.ordinal();
+    private static final int SIDE_LEFT = 0;
+    private static final int SIDE_RIGHT = 1;
+    private static final int SIDE_TOP = 2;
+    private static final int SIDE_BOTTOM = 3;
+    // Root of the streams handed to unseeded calls; split under a lock since SplittableRandom is not thread-safe.
+    private static final SplittableRandom UNSEEDED = new SplittableRandom();
 
     @Override
     public MazeResult generate(MazeConfig config) {
         // Orchestrate room placement, connection strategy, and hallway cleanup.
-        if (config.seed != null) {
-            random.setSeed(config.seed);
-        }
-        Tile[][] grid = new Tile[config.height][config.width];
-        for (int y = 0; y < config.height; y++) {
-            for (int x = 0; x < config.width; x++) {
-                grid[y][x] = Tile.EMPTY;
+        GenerationContext ctx = newContext(config);
+        GenerationMetrics.Recorder metrics = ctx.metrics;
+        long targetFilled = (long) (config.area() * config.coverage);
+        metrics.begin();
+        long placed = placeRooms(ctx, targetFilled);
+        metrics.end(GenerationMetrics.PLACEMENT, config);
+        metrics.begin();
+        long filled = connectRooms(ctx, placed);
+        metrics.tilesCarved = filled - placed;
+        metrics.end(GenerationMetrics.CONNECTION, config);
+        metrics.begin();
+        metrics.tilesPruned = removeDeadEnds(ctx);
+        metrics.end(GenerationMetrics.PRUNING, config);
+        MazeResult result = new MazeResult(ctx.grid, ctx.rooms, ctx.edges, targetFilled, placed, metrics.finish());
+        return config.connectivity == ConnectivityMode.OFF ? result : Connectivity.check(result, config, this, 1);
+    }
+
+    protected GenerationContext newContext(MazeConfig config) {
+        // Fresh grid, room list and RNG per call. Seeded legacy calls keep java.util.Random so
+        // existing seeds reproduce their mazes; unseeded calls get an independent split of a
+        // shared root. Counter mode swaps in a keyed CounterRandom either way.
+        TileGrid grid = new TileGrid(config.width, config.height);
+        return new GenerationContext(config, grid, new ArrayList<>(), newRandom(config.seed, config.rng));
+    }
+
+    protected static RandomGenerator newRandom(Long seed, RngMode rng) {
+        if (rng == RngMode.COUNTER) {
+            if (seed != null) return new CounterRandom(seed);
+            synchronized (UNSEEDED) {
+                return new CounterRandom(UNSEEDED.nextLong());
             }
         }
-        List<Room> rooms = new ArrayList<>();
-        int targetFilled = (int) (config.area() * config.coverage);
-        int filled = placeRooms(config, grid, rooms, targetFilled);
-        filled = connectRooms(config, grid, rooms, filled);
-        filled = pruneDeadEnds(grid, rooms);
-        return new MazeResult(grid, rooms);
+        if (seed != null) return new Random(seed);
+        synchronized (UNSEEDED) {
+            return UNSEEDED.split();
+        }
     }
 
-    protected abstract int connectRooms(MazeConfig config, Tile[][] grid, List<Room> rooms, int filled);
+    protected abstract long connectRooms(GenerationContext ctx, long filled);
 
-    protected int placeRooms(MazeConfig config, Tile[][] grid, List<Room> rooms, int target) {
+    protected int connectPair(GenerationContext ctx, Room a, Room b) {
+        // Carve one spanning-tree edge from a to b; returns newly filled tiles. Connectors use this
+        // for every edge so a single edge can be re-carved later (see RegionRegenerator).
+        int width = ctx.grid.width();
+        int height = ctx.grid.height();
+        long start = connectionPoint(a, b, width, height);
+        long end = connectionPoint(b, a, width, height);
+        return carveCorridor(ctx, start, end, ctx.config.hallwayWidth);
+    }
+
+    protected long placeRooms(GenerationContext ctx, long target) {
+        if (ctx.config.placement == PlacementMode.FREE_SPACE) {
+            return placeRoomsInFreeSpace(ctx, target);
+        }
+        MazeConfig config = ctx.config;
+        TileGrid grid = ctx.grid;
+        List<Room> rooms = ctx.rooms;
         // Randomly drop non-overlapping rooms until target coverage or max attempts.
-        int filled = 0;
+        RoomIndex index = RoomIndex.forConfig(config);
+        for (Room room : rooms) index.add(room);
+        long filled = 0;
         int attempts = 0;
         int maxAttempts = 10_000;
         while (filled < target && attempts < maxAttempts) {
+            RandomGenerator random = ctx.random(CounterRandom.ROOM_ATTEMPT, attempts);
             attempts++;
-            int w = randInRange(config.minRoomWidth, Math.min(config.maxRoomWidth, config.width));
-            int h = randInRange(config.minRoomHeight, Math.min(config.maxRoomHeight, config.height));
-            if (w <= 0 || h <= 0 || w > config.width || h > config.height) continue;
+            ctx.metrics.placementAttempts++;
+            int w = randInRange(random, config.minRoomWidth, Math.min(config.maxRoomWidth, config.width));
+            int h = randInRange(random, config.minRoomHeight, Math.min(config.maxRoomHeight, config.height));
+            if (w <= 0 || h <= 0 || w > config.width || h > config.height) {
+                ctx.metrics.placementRejections++;
+                continue;
+            }
             int x = random.nextInt(config.width - w + 1);
             int y = random.nextInt(config.height - h + 1);
-            if (!canPlace(grid, x, y, w, h)) continue;
+            if (index.overlaps(x, y, w, h)) {
+                ctx.metrics.placementRejections++;
+                continue;
+            }
             filled += fillRect(grid, x, y, w, h, Tile.ROOM);
             rooms.add(new Room(x, y, w, h));
+            index.add(x, y, w, h);
         }
         return filled;
     }
 
-    protected boolean canPlace(Tile[][] grid, int x, int y, int w, int h) {
-        // Ensure target rectangle is empty.
-        for (int yy = y; yy < y + h; yy++) {
-            for (int xx = x; xx < x + w; xx++) {
-                if (grid[yy][xx] != Tile.EMPTY) return false;
+    protected long placeRoomsInFreeSpace(GenerationContext ctx, long target) {
+        // Draw each room only from free rectangles that can hold it; every step places a room,
+        // so the loop ends after at most area / (minW * minH) steps even when the target is unreachable.
+        MazeConfig config = ctx.config;
+        TileGrid grid = ctx.grid;
+        List<Room> rooms = ctx.rooms;
+        int minW = Math.max(1, config.minRoomWidth);
+        int minH = Math.max(1, config.minRoomHeight);
+        FreeRectList free = new FreeRectList(config.width, config.height, minW, minH);
+        for (Room room : rooms) free.occupy(room.x, room.y, room.width, room.height);
+        long filled = 0;
+        for (int step = 0; filled < target && !free.isEmpty(); step++) {
+            RandomGenerator random = ctx.random(CounterRandom.ROOM_ATTEMPT, step);
+            ctx.metrics.placementAttempts++;
+            int w = Math.max(minW, randInRange(random, config.minRoomWidth, Math.min(config.maxRoomWidth, config.width)));
+            int h = Math.max(minH, randInRange(random, config.minRoomHeight, Math.min(config.maxRoomHeight, config.height)));
+            long total = 0;
+            for (int i = 0; i < free.size(); i++) total += free.placements(i, w, h);
+
+            int x;
+            int y;
+            if (total == 0) {
+                // Nothing fits the sampled size any more; shrink it to a random free rect instead.
+                int i = random.nextInt(free.size());
+                w = Math.min(w, free.width(i));
+                h = Math.min(h, free.height(i));
+                x = free.x(i) + random.nextInt(free.width(i) - w + 1);
+                y = free.y(i) + random.nextInt(free.height(i) - h + 1);
+            } else {
+                // Weight rects by how many positions they offer, then decode the position from the same draw.
+                long pick = random.nextLong(total);
+                int i = 0;
+                long count = free.placements(i, w, h);
+                while (pick >= count) {
+                    pick -= count;
+                    count = free.placements(++i, w, h);
+                }
+                int span = free.width(i) - w + 1;
+                x = free.x(i) + (int) (pick % span);
+                y = free.y(i) + (int) (pick / span);
             }
+            filled += fillRect(grid, x, y, w, h, Tile.ROOM);
+            rooms.add(new Room(x, y, w, h));
+            free.occupy(x, y, w, h);
         }
-        return true;
+        return filled;
     }
 
-    protected int fillRect(Tile[][] grid, int x, int y, int w, int h, Tile value) {
+    protected long fillRect(TileGrid grid, int x, int y, int w, int h, Tile value) {
         // Fill rectangle with tile value, counting newly filled cells.
-        int filled = 0;
-        for (int yy = y; yy < y + h; yy++) {
-            for (int xx = x; xx < x + w; xx++) {
-                if (grid[yy][xx] == Tile.EMPTY) filled++;
-                grid[yy][xx] = value;
-            }
-        }
-        return filled;
+        return grid.fillRect(x, y, w, h, value);
     }
 
-    protected int carveCorridor(Tile[][] grid, int[] start, int[] end, int width) {
-        // Carve an L-shaped corridor between two points with random orientation.
-        boolean horizontalFirst = random.nextBoolean();
+    protected int carveCorridor(GenerationContext ctx, long start, long end, int width) {
+        // Carve an L-shaped corridor between two packed points with random orientation, or let
+        // the A* router find a way around rooms; boxed-in points still get the L shape.
+        if (ctx.config.router == RouterMode.ASTAR) {
+            int routed = ctx.router().route(ctx, start, end, width);
+            if (routed >= 0) return routed;
+        }
+        int sx = TileGrid.unpackX(start), sy = TileGrid.unpackY(start);
+        int ex = TileGrid.unpackX(end), ey = TileGrid.unpackY(end);
+        // Keyed by both endpoints, so a corridor's shape does not depend on when it is carved.
+        boolean horizontalFirst = ctx.random(CounterRandom.CORRIDOR, CounterRandom.mix(start) ^ end).nextBoolean();
         int filled = 0;
         if (horizontalFirst) {
-            filled += fillLine(grid, start[0], start[1], end[0], start[1], width);
-            filled += fillLine(grid, end[0], start[1], end[0], end[1], width);
+            filled += fillLine(ctx, sx, sy, ex, sy, width);
+            filled += fillLine(ctx, ex, sy, ex, ey, width);
         } else {
-            filled += fillLine(grid, start[0], start[1], start[0], end[1], width);
-            filled += fillLine(grid, start[0], end[1], end[0], end[1], width);
+            filled += fillLine(ctx, sx, sy, sx, ey, width);
+            filled += fillLine(ctx, sx, ey, ex, ey, width);
         }
         return filled;
     }
 
-    protected int fillLine(Tile[][] grid, int x0, int y0, int x1, int y1, int width) {
-        // Fill straight line segments (horizontal/vertical), respecting room tiles.
-        int filled = 0;
-        int gw = grid[0].length;
-        int gh = grid.length;
+    protected int fillLine(GenerationContext ctx, int x0, int y0, int x1, int y1, int width) {
+        // Fill straight line segments (horizontal/vertical), respecting room tiles. Either way the
+        // band is one rectangle, filled row by row with word-wide writes.
         if (x0 == x1) {
             int xs = x0 - width / 2;
-            int xe = xs + width;
-            for (int y : rangeInclusive(y0, y1)) {
-                for (int x = xs; x < xe; x++) {
-                    if (x >= 0 && x < gw && y >= 0 && y < gh) {
-                        Tile cell = grid[y][x];
-                        if (cell == Tile.ROOM) continue;
-                        if (cell == Tile.EMPTY) filled++;
-                        grid[y][x] = Tile.HALLWAY;
-                    }
-                }
-            }
+            recordEnds(ctx, y0, y1, xs, xs + width, true);
+            return (int) ctx.grid.fillEmpty(xs, Math.min(y0, y1), width, Math.abs(y1 - y0) + 1, Tile.HALLWAY);
         } else if (y0 == y1) {
             int ys = y0 - width / 2;
-            int ye = ys + width;
-            for (int y = ys; y < ye; y++) {
-                for (int x : rangeInclusive(x0, x1)) {
-                    if (x >= 0 && x < gw && y >= 0 && y < gh) {
-                        Tile cell = grid[y][x];
-                        if (cell == Tile.ROOM) continue;
-                        if (cell == Tile.EMPTY) filled++;
-                        grid[y][x] = Tile.HALLWAY;
-                    }
-                }
-            }
-        } else {
-            filled += fillLine(grid, x0, y0, x1, y0, width);
-            filled += fillLine(grid, x1, y0, x1, y1, width);
+            recordEnds(ctx, x0, x1, ys, ys + width, false);
+            return (int) ctx.grid.fillEmpty(Math.min(x0, x1), ys, Math.abs(x1 - x0) + 1, width, Tile.HALLWAY);
         }
-        return filled;
+        return fillLine(ctx, x0, y0, x1, y0, width) + fillLine(ctx, x1, y0, x1, y1, width);
     }
 
-    protected Iterable<Integer> rangeInclusive(int start, int end) {
-        // Inclusive integer range helper.
-        List<Integer> values = new ArrayList<>();
-        int step = end >= start ? 1 : -1;
-        for (int v = start; v != end + step; v += step) {
-            values.add(v);
+    private void recordEnds(GenerationContext ctx, int along0, int along1, int cross0, int cross1, boolean vertical) {
+        // Every tile strictly inside a band has band (or room) tiles before and after it, and
+        // carving never removes hallway, so only the first and last in-bounds cross-sections can
+        // become dead ends. Queue them for pruning.
+        int alongMax = (vertical ? ctx.grid.height() : ctx.grid.width()) - 1;
+        int crossMax = (vertical ? ctx.grid.width() : ctx.grid.height()) - 1;
+        int lo = Math.max(Math.min(along0, along1), 0);
+        int hi = Math.min(Math.max(along0, along1), alongMax);
+        int from = Math.max(cross0, 0);
+        int to = Math.min(cross1 - 1, crossMax);
+        if (lo > hi || from > to) return;
+        for (int c = from; c <= to; c++) {
+            ctx.frontier.push(vertical ? TileGrid.pack(c, lo) : TileGrid.pack(lo, c));
+            if (hi != lo) ctx.frontier.push(vertical ? TileGrid.pack(c, hi) : TileGrid.pack(hi, c));
         }
-        return values;
     }
 
-    protected int[] connectionPoint(Room room, Room target, int gridW, int gridH) {
-        // Pick a point just outside the room closest to the target center.
+    protected long connectionPoint(Room room, Room target, int gridW, int gridH) {
+        // Pick a point just outside the room closest to the target center, packed with TileGrid.pack.
         int tx = target.centerX();
         int ty = target.centerY();
         int x0 = room.x;
@@ -152,21 +230,19 @@ public abstract class AbstractRoomMazeGenerator implements MazeGenerator {
         int bottomDist = Math.abs(ty - y1);
 
         int min = leftDist;
-        String side = "left";
-        if (rightDist < min) { min = rightDist; side = "right"; }
-        if (topDist < min) { min = topDist; side = "top"; }
-        if (bottomDist < min) { side = "bottom"; }
+        int side = SIDE_LEFT;
+        if (rightDist < min) { min = rightDist; side = SIDE_RIGHT; }
+        if (topDist < min) { min = topDist; side = SIDE_TOP; }
+        if (bottomDist < min) { side = SIDE_BOTTOM; }
 
         switch (side) {
-            case "left" -> cx = x0 - 1;
-            case "right" -> cx = x1 + 1;
-            case "top" -> cy = y0 - 1;
-            case "bottom" -> cy = y1 + 1;
+            case SIDE_LEFT -> cx = x0 - 1;
+            case SIDE_RIGHT -> cx = x1 + 1;
+            case SIDE_TOP -> cy = y0 - 1;
+            default -> cy = y1 + 1;
         }
 
-        cx = clamp(cx, 0, gridW - 1);
-        cy = clamp(cy, 0, gridH - 1);
-        return new int[]{cx, cy};
+        return TileGrid.pack(clamp(cx, 0, gridW - 1), clamp(cy, 0, gridH - 1));
     }
 
     protected int clamp(int v, int min, int max) {
@@ -176,88 +252,72 @@ public abstract class AbstractRoomMazeGenerator implements MazeGenerator {
         return v;
     }
 
-    protected int[] center(Room room) {
-        // Center coordinate of a room.
-        return new int[]{room.centerX(), room.centerY()};
+    protected long center(Room room) {
+        // Center coordinate of a room, packed.
+        return TileGrid.pack(room.centerX(), room.centerY());
     }
 
-    protected int manhattan(int[] a, int[] b) {
-        // Manhattan distance helper.
-        return Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]);
+    protected int manhattan(long a, long b) {
+        // Manhattan distance between packed points.
+        return Math.abs(TileGrid.unpackX(a) - TileGrid.unpackX(b)) + Math.abs(TileGrid.unpackY(a) - TileGrid.unpackY(b));
     }
 
-    protected int pruneDeadEnds(Tile[][] grid, List<Room> rooms) {
-        // Remove hallway dead ends not adjacent to rooms and return filled count.
-        int h = grid.length;
-        if (h == 0) return 0;
-        int w = grid[0].length;
+    protected long pruneDeadEnds(GenerationContext ctx, long filled) {
+        // Remove hallway dead ends not adjacent to rooms and return the remaining filled count.
+        return filled - removeDeadEnds(ctx);
+    }
 
-        boolean[][] roomAdjacent = new boolean[h][w];
-        for (Room room : rooms) {
-            for (int y = room.y; y < room.y + room.height; y++) {
-                for (int x = room.x; x < room.x + room.width; x++) {
-                    for (int[] d : new int[][]{{1,0},{-1,0},{0,1},{0,-1}}) {
-                        int nx = x + d[0];
-                        int ny = y + d[1];
-                        if (nx >= 0 && nx < w && ny >= 0 && ny < h) {
-                            roomAdjacent[ny][nx] = true;
-                        }
-                    }
-                }
-            }
+    protected long removeDeadEnds(GenerationContext ctx) {
+        // Remove hallway dead ends not adjacent to rooms and return how many tiles went.
+        // Seeds are the segment ends recorded while carving; each removal can only turn its own
+        // neighbours into dead ends, so the work follows the pruned hallways, not the grid area.
+        // The fixpoint does not depend on the order tiles are visited.
+        TileGrid grid = ctx.grid;
+        LongStack stack = ctx.frontier;
+        long removed = 0;
+        while (!stack.isEmpty()) {
+            long pos = stack.pop();
+            int x = TileGrid.unpackX(pos);
+            int y = TileGrid.unpackY(pos);
+            if (!isDeadEnd(grid, x, y)) continue;
+            grid.set(x, y, Tile.EMPTY);
+            removed++;
+            if (x + 1 < grid.width()) stack.push(TileGrid.pack(x + 1, y));
+            if (x > 0) stack.push(TileGrid.pack(x - 1, y));
+            if (y + 1 < grid.height()) stack.push(TileGrid.pack(x, y + 1));
+            if (y > 0) stack.push(TileGrid.pack(x, y - 1));
         }
+        return removed;
+    }
 
-        Deque<int[]> queue = new ArrayDeque<>();
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                if (grid[y][x] == Tile.HALLWAY && neighCount(grid, x, y) <= 1 && !roomAdjacent[y][x]) {
-                    queue.add(new int[]{x, y});
-                }
-            }
+    protected boolean isDeadEnd(TileGrid grid, int x, int y) {
+        // A hallway tile with at most one hallway neighbour and no room tile beside it.
+        if (grid.code(x, y) != HALLWAY) return false;
+        int hallways = 0;
+        if (x + 1 < grid.width()) {
+            int code = grid.code(x + 1, y);
+            if (code == ROOM) return false;
+            if (code == HALLWAY) hallways++;
         }
-
-        while (!queue.isEmpty()) {
-            int[] pos = queue.removeLast();
-            int x = pos[0], y = pos[1];
-            if (grid[y][x] != Tile.HALLWAY) continue;
-            if (roomAdjacent[y][x]) continue;
-            if (neighCount(grid, x, y) > 1) continue;
-            grid[y][x] = Tile.EMPTY;
-            for (int[] d : new int[][]{{1,0},{-1,0},{0,1},{0,-1}}) {
-                int nx = x + d[0];
-                int ny = y + d[1];
-                if (nx >= 0 && nx < w && ny >= 0 && ny < h) {
-                    if (grid[ny][nx] == Tile.HALLWAY && neighCount(grid, nx, ny) <= 1 && !roomAdjacent[ny][nx]) {
-                        queue.add(new int[]{nx, ny});
-                    }
-                }
-            }
+        if (x > 0) {
+            int code = grid.code(x - 1, y);
+            if (code == ROOM) return false;
+            if (code == HALLWAY) hallways++;
         }
-
-        int filled = 0;
-        for (Tile[] row : grid) {
-            for (Tile cell : row) {
-                if (cell != Tile.EMPTY) filled++;
-            }
+        if (y + 1 < grid.height()) {
+            int code = grid.code(x, y + 1);
+            if (code == ROOM) return false;
+            if (code == HALLWAY) hallways++;
         }
-        return filled;
-    }
-
-    protected int neighCount(Tile[][] grid, int x, int y) {
-        // Count hallway neighbors for dead-end pruning.
-        int count = 0;
-        int[][] dirs = {{1,0},{-1,0},{0,1},{0,-1}};
-        for (int[] d : dirs) {
-            int nx = x + d[0];
-            int ny = y + d[1];
-            if (ny >= 0 && ny < grid.length && nx >= 0 && nx < grid[0].length) {
-                if (grid[ny][nx] == Tile.HALLWAY) count++;
-            }
+        if (y > 0) {
+            int code = grid.code(x, y - 1);
+            if (code == ROOM) return false;
+            if (code == HALLWAY) hallways++;
         }
-        return count;
+        return hallways <= 1;
     }
 
-    protected int randInRange(int min, int max) {
+    protected int randInRange(RandomGenerator random, int min, int max) {
         // Inclusive random integer helper.
         if (max < min) return min;
         return min + random.nextInt(max - min + 1);
@@ -0,0 +1,128 @@
+package maze;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates and renders one maze per seed of a {@link SeedRange} in a single JVM.
+ *
+ * <p>Every seed runs on its own virtual thread against the shared (reentrant) generator. A
+ * semaphore caps the mazes in flight, and the submitting loop blocks on it, so at most that
+ * many grids are resident and renders queue up behind slow disks instead of piling up in memory.
+ */
+public final class BatchRunner {
+    private final MazeGenerator generator;
+    private final int inFlight;
+    private final MazeCache cache;
+
+    public BatchRunner(MazeGenerator generator, int inFlight) {
+        this(generator, inFlight, null);
+    }
+
+    public BatchRunner(MazeGenerator generator, int inFlight, MazeCache cache) {
+        // With a cache, seeds already seen (in this run or, with a disk tier, an earlier one) skip
+        // generation and rendering and only have their PNG copied out.
+        if (inFlight <= 0) {
+            throw new IllegalArgumentException("In-flight limit must be positive: " + inFlight);
+        }
+        this.generator = generator;
+        this.inFlight = inFlight;
+        this.cache = cache;
+    }
+
+    public Summary run(MazeConfig config) throws InterruptedException {
+        SeedRange seeds = config.batchSeeds;
+        String pattern = config.outputPattern;
+        checkPattern(pattern, seeds);
+        Semaphore permits = new Semaphore(inFlight);
+        AtomicLong done = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong tiles = new AtomicLong();
+        AtomicLong filled = new AtomicLong();
+        GenerationMetrics[] metrics = {GenerationMetrics.NONE};
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long seed = seeds.first; ; seed++) {
+                permits.acquire();
+                MazeConfig one = config.forSeed(seed, String.format(pattern, seed));
+                executor.execute(() -> {
+                    try {
+                        MazeResult result;
+                        if (cache != null) {
+                            MazeCache.Entry entry = cache.get(generator, one);
+                            Files.write(Path.of(one.outputPath), entry.png);
+                            result = entry.result;
+                        } else {
+                            result = generator.generate(one);
+                            MazeRenderer.renderPng(result.grid, one.outputPath, one.renderer);
+                        }
+                        tiles.addAndGet(one.area());
+                        filled.addAndGet(result.grid.countFilled());
+                        if (result.metrics != GenerationMetrics.NONE) {
+                            synchronized (metrics) {
+                                metrics[0] = GenerationMetrics.sum(List.of(metrics[0], result.metrics));
+                            }
+                        }
+                        done.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        failed.incrementAndGet();
+                        System.err.println("Seed " + one.seed + " failed: " + e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+                if (seed == seeds.last) break;
+            }
+        }
+        return new Summary(done.get(), failed.get(), tiles.get(), filled.get(), System.nanoTime() - start, metrics[0]);
+    }
+
+    private static void checkPattern(String pattern, SeedRange seeds) {
+        // Fail before any work if the pattern cannot be formatted or would reuse one file name.
+        try {
+            String first = String.format(pattern, seeds.first);
+            if (seeds.count() > 1 && first.equals(String.format(pattern, seeds.first + 1))) {
+                throw new IllegalArgumentException("Output pattern must include the seed (e.g. maze-%d.png): " + pattern);
+            }
+        } catch (IllegalFormatException e) {
+            throw new IllegalArgumentException("Invalid output pattern '" + pattern + "': " + e.getMessage());
+        }
+    }
+
+    public static final class Summary {
+        public final long mazes;
+        public final long failed;
+        public final long tiles;
+        public final long filled;
+        public final long nanos;
+        public final GenerationMetrics metrics; // summed over the mazes generated here; NONE if all were cached
+
+        Summary(long mazes, long failed, long tiles, long filled, long nanos, GenerationMetrics metrics) {
+            this.mazes = mazes;
+            this.failed = failed;
+            this.tiles = tiles;
+            this.filled = filled;
+            this.nanos = nanos;
+            this.metrics = metrics;
+        }
+
+        public double seconds() {
+            return nanos / 1e9;
+        }
+
+        public double mazesPerSecond() {
+            return nanos == 0 ? 0.0 : mazes / seconds();
+        }
+
+        public double tilesPerSecond() {
+            return nanos == 0 ? 0.0 : tiles / seconds();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package maze;
+
+import java.util.List;
+
+/**
+ * Static 2-d tree over room centers answering Manhattan nearest-neighbour queries.
+ *
+ * <p>Points can be removed but not added. Each subtree tracks its bounding box and how many of
+ * its points are still present, so empty subtrees are skipped and the rest are pruned by the
+ * box distance. Ties on distance go to the lowest room index, which keeps results independent
+ * of the tree layout.
+ */
+public final class CenterKdTree {
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] order; // room index stored at each tree slot
+    private final int[] slotOf; // tree slot of each room index
+    private final int[] minX;
+    private final int[] maxX;
+    private final int[] minY;
+    private final int[] maxY;
+    private final int[] alive;
+    private final boolean[] removed;
+
+    private long bestDist;
+    private int bestIndex;
+
+    public CenterKdTree(List<Room> rooms) {
+        int n = rooms.size();
+        xs = new int[n];
+        ys = new int[n];
+        order = new int[n];
+        slotOf = new int[n];
+        minX = new int[n];
+        maxX = new int[n];
+        minY = new int[n];
+        maxY = new int[n];
+        alive = new int[n];
+        removed = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Room r = rooms.get(i);
+            xs[i] = r.centerX();
+            ys[i] = r.centerY();
+            order[i] = i;
+        }
+        build(0, n, true);
+        for (int slot = 0; slot < n; slot++) slotOf[order[slot]] = slot;
+    }
+
+    public int x(int index) {
+        return xs[index];
+    }
+
+    public int y(int index) {
+        return ys[index];
+    }
+
+    public boolean contains(int index) {
+        return !removed[index];
+    }
+
+    public void remove(int index) {
+        if (removed[index]) return;
+        removed[index] = true;
+        int target = slotOf[index];
+        int lo = 0;
+        int hi = xs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            alive[mid]--;
+            if (target == mid) return;
+            if (target < mid) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+    }
+
+    public int nearest(int qx, int qy) {
+        // Lowest-index point at minimal Manhattan distance, or -1 once every point is removed.
+        bestDist = Long.MAX_VALUE;
+        bestIndex = -1;
+        search(0, xs.length, true, qx, qy);
+        return bestIndex;
+    }
+
+    public long distance(int index, int qx, int qy) {
+        return Math.abs((long) xs[index] - qx) + Math.abs((long) ys[index] - qy);
+    }
+
+    private void search(int lo, int hi, boolean splitX, int qx, int qy) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (alive[mid] == 0) return;
+        long dx = qx < minX[mid] ? (long) minX[mid] - qx : qx > maxX[mid] ? (long) qx - maxX[mid] : 0;
+        long dy = qy < minY[mid] ? (long) minY[mid] - qy : qy > maxY[mid] ? (long) qy - maxY[mid] : 0;
+        // Equal bounds still need a visit: the subtree may hold a lower index at the same distance.
+        if (dx + dy > bestDist) return;
+
+        int p = order[mid];
+        if (!removed[p]) {
+            long d = distance(p, qx, qy);
+            if (d < bestDist || (d == bestDist && p < bestIndex)) {
+                bestDist = d;
+                bestIndex = p;
+            }
+        }
+        boolean lowFirst = splitX ? qx <= xs[p] : qy <= ys[p];
+        if (lowFirst) {
+            search(lo, mid, !splitX, qx, qy);
+            search(mid + 1, hi, !splitX, qx, qy);
+        } else {
+            search(mid + 1, hi, !splitX, qx, qy);
+            search(lo, mid, !splitX, qx, qy);
+        }
+    }
+
+    private void build(int lo, int hi, boolean splitX) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, splitX);
+        build(lo, mid, !splitX);
+        build(mid + 1, hi, !splitX);
+
+        int p = order[mid];
+        minX[mid] = maxX[mid] = xs[p];
+        minY[mid] = maxY[mid] = ys[p];
+        alive[mid] = 1;
+        if (lo < mid) absorb(mid, (lo + mid) >>> 1);
+        if (mid + 1 < hi) absorb(mid, (mid + 1 + hi) >>> 1);
+    }
+
+    private void absorb(int node, int child) {
+        minX[node] = Math.min(minX[node], minX[child]);
+        maxX[node] = Math.max(maxX[node], maxX[child]);
+        minY[node] = Math.min(minY[node], minY[child]);
+        maxY[node] = Math.max(maxY[node], maxY[child]);
+        alive[node] += alive[child];
+    }
+
+    private void select(int lo, int hi, int k, boolean splitX) {
+        // Quickselect on the slot range so order[k] holds the median along the split axis.
+        int[] keys = splitX ? xs : ys;
+        while (lo < hi) {
+            int pivot = keys[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[order[i]] < pivot) i++;
+                while (keys[order[j]] > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a map into rectangular chunks that can be generated independently.
+ *
+ * <p>Each chunk runs the base generator on its own sub-area with a seed derived from the map
+ * seed and the chunk coordinates, so a chunk's content never depends on which other chunks
+ * exist or in which order they were built. Neighbouring chunks are joined by one stitch
+ * corridor each, chosen and carved only from the two chunks it connects; the stitch is
+ * clipped to those two chunks so either side can be carved on its own.
+ */
+public final class ChunkLayout {
+    private static final int STITCH_CANDIDATES = 8;
+    private static final long GOLDEN_GAMMA = 0x9E37_79B9_7F4A_7C15L;
+
+    private final MazeConfig config;
+    private final AbstractRoomMazeGenerator generator;
+    private final int chunkWidth;
+    private final int chunkHeight;
+    private final long seed;
+
+    public ChunkLayout(MazeConfig config, AbstractRoomMazeGenerator generator, int chunkWidth, int chunkHeight, long seed) {
+        // Chunk columns must start on a grid word so rows can be assembled by word copies.
+        if (chunkWidth <= 0 || (chunkWidth % TileGrid.TILES_PER_WORD != 0 && chunkWidth < config.width)) {
+            throw new IllegalArgumentException("Chunk width must be a positive multiple of " + TileGrid.TILES_PER_WORD + ": " + chunkWidth);
+        }
+        if (chunkHeight <= 0) {
+            throw new IllegalArgumentException("Chunk height must be positive: " + chunkHeight);
+        }
+        this.config = config;
+        this.generator = generator;
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.seed = seed;
+    }
+
+    public int chunksX() {
+        return (int) (((long) config.width + chunkWidth - 1) / chunkWidth);
+    }
+
+    public int chunksY() {
+        return (int) (((long) config.height + chunkHeight - 1) / chunkHeight);
+    }
+
+    public int chunkX0(int cx) {
+        return cx * chunkWidth;
+    }
+
+    public int chunkY0(int cy) {
+        return cy * chunkHeight;
+    }
+
+    public int chunkWidth(int cx) {
+        return Math.min(chunkWidth, config.width - chunkX0(cx));
+    }
+
+    public int chunkHeight(int cy) {
+        return Math.min(chunkHeight, config.height - chunkY0(cy));
+    }
+
+    public long chunkSeed(int cx, int cy) {
+        return mix(mix(seed + GOLDEN_GAMMA * (cx + 1L)) + GOLDEN_GAMMA * (cy + 1L));
+    }
+
+    public MazeConfig chunkConfig(int cx, int cy) {
+        return config.resized(chunkWidth(cx), chunkHeight(cy), chunkSeed(cx, cy));
+    }
+
+    public Chunk generateChunk(int cx, int cy) {
+        // Rooms, corridors and pruning for one chunk, in chunk-local coordinates.
+        MazeResult result = generator.generate(chunkConfig(cx, cy));
+        return new Chunk(cx, cy, chunkX0(cx), chunkY0(cy), result);
+    }
+
+    public List<Room> placeChunkRooms(int cx, int cy) {
+        // The rooms generateChunk would place, without connecting them: placement draws first
+        // from the chunk's stream, so the result matches the full pipeline.
+        MazeConfig chunkConfig = chunkConfig(cx, cy);
+        GenerationContext ctx = generator.newContext(chunkConfig);
+        generator.placeRooms(ctx, (long) (chunkConfig.area() * chunkConfig.coverage));
+        return ctx.rooms;
+    }
+
+    public int stitch(Chunk a, Chunk b, boolean carveA, boolean carveB) {
+        // Join two chunks in the same row or column with one L-shaped corridor; returns newly filled tiles.
+        int[] path = planStitch(a.cx, a.cy, a.result.rooms, b.cx, b.cy, b.result.rooms);
+        if (path == null) return 0;
+        int filled = 0;
+        if (carveA) filled += carvePath(a.result.grid, a.x0, a.y0, a.cx, a.cy, a.cx, a.cy, path);
+        if (carveB) filled += carvePath(b.result.grid, b.x0, b.y0, b.cx, b.cy, b.cx, b.cy, path);
+        return filled;
+    }
+
+    public int stitchFrom(Chunk chunk, int ncx, int ncy, List<Room> neighbourRooms) {
+        // Carve only this chunk's half of its stitch to the neighbour (ncx, ncy), given the
+        // neighbour's rooms; the other half is carved when the neighbour is built.
+        boolean after = ncy > chunk.cy || (ncy == chunk.cy && ncx > chunk.cx);
+        int[] path = after
+                ? planStitch(chunk.cx, chunk.cy, chunk.result.rooms, ncx, ncy, neighbourRooms)
+                : planStitch(ncx, ncy, neighbourRooms, chunk.cx, chunk.cy, chunk.result.rooms);
+        if (path == null) return 0;
+        return carvePath(chunk.result.grid, chunk.x0, chunk.y0, chunk.cx, chunk.cy, chunk.cx, chunk.cy, path);
+    }
+
+    public int stitchInto(TileGrid map, int acx, int acy, List<Room> roomsA, int bcx, int bcy, List<Room> roomsB) {
+        // Same stitch as above for chunks already copied into a full map grid.
+        int[] path = planStitch(acx, acy, roomsA, bcx, bcy, roomsB);
+        if (path == null) return 0;
+        return carvePath(map, 0, 0, acx, acy, bcx, bcy, path);
+    }
+
+    public int[] stitchRooms(int acx, int acy, List<Room> roomsA, int bcx, int bcy, List<Room> roomsB) {
+        // Indices into roomsA and roomsB of the pair a stitch between the two chunks joins, or
+        // null if either side has no rooms: the closest pair among the rooms nearest the border.
+        boolean right = bcy == acy && bcx > acx;
+        if (!right && !(bcx == acx && bcy > acy)) {
+            throw new IllegalArgumentException("Chunk " + bcx + "," + bcy + " is not right of or below " + acx + "," + acy);
+        }
+        long dx = (long) chunkX0(bcx) - chunkX0(acx);
+        long dy = (long) chunkY0(bcy) - chunkY0(acy);
+        int bestA = -1;
+        int bestB = -1;
+        long bestDist = Long.MAX_VALUE;
+        List<Integer> fromA = borderRooms(roomsA, right, true);
+        List<Integer> fromB = borderRooms(roomsB, right, false);
+        for (int ia : fromA) {
+            Room ra = roomsA.get(ia);
+            for (int ib : fromB) {
+                Room rb = roomsB.get(ib);
+                long dist = Math.abs(ra.centerX() - rb.centerX() - dx) + Math.abs(ra.centerY() - rb.centerY() - dy);
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    bestA = ia;
+                    bestB = ib;
+                }
+            }
+        }
+        return bestA < 0 ? null : new int[]{bestA, bestB};
+    }
+
+    private int[] planStitch(int acx, int acy, List<Room> roomsA, int bcx, int bcy, List<Room> roomsB) {
+        // Lay out an L path between the stitch rooms: start, corner and end points in map
+        // coordinates, or null if either side has no rooms. Chunks in between (e.g. empty ones)
+        // are allowed; the path is clipped to the whole span.
+        int[] pair = stitchRooms(acx, acy, roomsA, bcx, bcy, roomsB);
+        if (pair == null) return null;
+        boolean right = bcy == acy;
+        Room bestA = translated(roomsA.get(pair[0]), chunkX0(acx), chunkY0(acy));
+        Room bestB = translated(roomsB.get(pair[1]), chunkX0(bcx), chunkY0(bcy));
+
+        long start = generator.connectionPoint(bestA, bestB, config.width, config.height);
+        long end = generator.connectionPoint(bestB, bestA, config.width, config.height);
+        int sx = TileGrid.unpackX(start), sy = TileGrid.unpackY(start);
+        int ex = TileGrid.unpackX(end), ey = TileGrid.unpackY(end);
+        boolean horizontalFirst = (mix(chunkSeed(acx, acy) + (right ? 1 : 2)) & 1) == 0;
+        int cornerX = horizontalFirst ? ex : sx;
+        int cornerY = horizontalFirst ? sy : ey;
+        return new int[]{sx, sy, cornerX, cornerY, ex, ey};
+    }
+
+    private int carvePath(TileGrid grid, int originX, int originY, int cx0, int cy0, int cx1, int cy1, int[] path) {
+        // Carve both legs into a grid whose (0,0) sits at (originX, originY), clipped to chunks cx0..cx1 x cy0..cy1.
+        int clipX0 = Math.max(chunkX0(cx0), originX);
+        int clipY0 = Math.max(chunkY0(cy0), originY);
+        int clipX1 = Math.min(chunkX0(cx1) + chunkWidth(cx1), originX + grid.width());
+        int clipY1 = Math.min(chunkY0(cy1) + chunkHeight(cy1), originY + grid.height());
+        int filled = carveSegment(grid, originX, originY, clipX0, clipY0, clipX1, clipY1, path[0], path[1], path[2], path[3]);
+        filled += carveSegment(grid, originX, originY, clipX0, clipY0, clipX1, clipY1, path[2], path[3], path[4], path[5]);
+        return filled;
+    }
+
+    private List<Integer> borderRooms(List<Room> local, boolean right, boolean before) {
+        // Indices of the rooms of a chunk closest to the shared border; the chunk offset is the
+        // same for all of them, so local coordinates order them just as map coordinates would.
+        List<Integer> rooms = new ArrayList<>(local.size());
+        for (int i = 0; i < local.size(); i++) rooms.add(i);
+        rooms.sort((p, q) -> Long.compare(borderGap(local.get(p), right, before), borderGap(local.get(q), right, before)));
+        return rooms.subList(0, Math.min(STITCH_CANDIDATES, rooms.size()));
+    }
+
+    private static Room translated(Room r, int x0, int y0) {
+        return new Room(r.x + x0, r.y + y0, r.width, r.height);
+    }
+
+    private static long borderGap(Room r, boolean right, boolean before) {
+        if (right) return before ? -(long) (r.x + r.width) : r.x;
+        return before ? -(long) (r.y + r.height) : r.y;
+    }
+
+    private int carveSegment(TileGrid grid, int originX, int originY, int clipX0, int clipY0, int clipX1, int clipY1,
+                             int x0, int y0, int x1, int y1) {
+        // Same band as AbstractRoomMazeGenerator.fillLine, clipped to the given map rectangle.
+        int width = config.hallwayWidth;
+        int xs, xe, ys, ye;
+        if (x0 == x1) {
+            xs = x0 - width / 2;
+            xe = xs + width;
+            ys = Math.min(y0, y1);
+            ye = Math.max(y0, y1) + 1;
+        } else {
+            ys = y0 - width / 2;
+            ye = ys + width;
+            xs = Math.min(x0, x1);
+            xe = Math.max(x0, x1) + 1;
+        }
+        int fromX = Math.max(xs, clipX0), toX = Math.min(xe, clipX1);
+        int fromY = Math.max(ys, clipY0), toY = Math.min(ye, clipY1);
+        if (fromX >= toX || fromY >= toY) return 0;
+        return (int) grid.fillEmpty(fromX - originX, fromY - originY, toX - fromX, toY - fromY, Tile.HALLWAY);
+    }
+
+    static long mix(long z) {
+        // SplitMix64 finaliser.
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** A generated chunk: its grid and rooms are chunk-local, offset by (x0, y0) in the map. */
+    public static final class Chunk {
+        public final int cx;
+        public final int cy;
+        public final int x0;
+        public final int y0;
+        public final MazeResult result;
+
+        Chunk(int cx, int cy, int x0, int y0, MazeResult result) {
+            this.cx = cx;
+            this.cy = cy;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package maze;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates a map one band of chunks at a time and streams finished rows to a PNG.
+ *
+ * <p>Only two bands are resident: the band being generated and the one above it, which still
+ * receives the vertical stitch corridors. Once those are carved the upper band is final, its
+ * rows are written out and it is dropped, so memory is O(width x chunkSize) for any height.
+ */
+public final class ChunkedMazeGenerator {
+    private final AbstractRoomMazeGenerator base;
+
+    public ChunkedMazeGenerator(AbstractRoomMazeGenerator base) {
+        this.base = base;
+    }
+
+    public Summary generate(MazeConfig config, PngRowWriter out) throws IOException {
+        long seed = config.seed != null ? config.seed : ThreadLocalRandom.current().nextLong();
+        ChunkLayout layout = new ChunkLayout(config, base, config.chunkSize, config.chunkSize, seed);
+        TileGrid row = new TileGrid(config.width, 1);
+        long rooms = 0;
+        long stitches = 0;
+        long filled = 0;
+
+        ChunkLayout.Chunk[] above = null;
+        for (int cy = 0; cy < layout.chunksY(); cy++) {
+            ChunkLayout.Chunk[] band = new ChunkLayout.Chunk[layout.chunksX()];
+            for (int cx = 0; cx < band.length; cx++) {
+                band[cx] = layout.generateChunk(cx, cy);
+                rooms += band[cx].result.rooms.size();
+                if (cx > 0 && layout.stitch(band[cx - 1], band[cx], true, true) > 0) stitches++;
+                if (above != null && layout.stitch(above[cx], band[cx], true, true) > 0) stitches++;
+            }
+            if (above != null) filled += flush(above, row, out);
+            above = band;
+        }
+        if (above != null) filled += flush(above, row, out);
+        return new Summary(layout.chunksX() * (long) layout.chunksY(), rooms, stitches, filled);
+    }
+
+    private long flush(ChunkLayout.Chunk[] band, TileGrid row, PngRowWriter out) throws IOException {
+        // Assemble each full-width row from the band's chunks, left to right, and hand it over.
+        int bandHeight = band[0].result.grid.height();
+        for (int y = 0; y < bandHeight; y++) {
+            for (ChunkLayout.Chunk chunk : band) {
+                chunk.result.grid.copyRow(y, row, chunk.x0, 0);
+            }
+            out.writeRow(row, 0);
+        }
+        long filled = 0;
+        for (ChunkLayout.Chunk chunk : band) {
+            filled += chunk.result.grid.countFilled();
+        }
+        return filled;
+    }
+
+    public static final class Summary {
+        public final long chunks;
+        public final long rooms;
+        public final long stitches;
+        public final long filled;
+
+        Summary(long chunks, long rooms, long stitches, long filled) {
+            this.chunks = chunks;
+            this.rooms = rooms;
+            this.stitches = stitches;
+            this.filled = filled;
+        }
+    }
+}
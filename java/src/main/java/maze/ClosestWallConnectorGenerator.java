@@ -5,64 +5,79 @@ import java.util.List;
 
 public final class ClosestWallConnectorGenerator extends AbstractRoomMazeGenerator {
     @Override
-    protected int connectRooms(MazeConfig config, Tile[][] grid, List<Room> rooms, int filled) {
+    protected long connectRooms(GenerationContext ctx, long filled) {
         // Connect rooms by iteratively linking the nearest unconnected room to the growing tree.
+        List<Room> rooms = ctx.rooms;
         int n = rooms.size();
         if (n < 2) return filled;
 
-        int[][] distances = buildDistanceMatrix(rooms);
-        List<Integer> unconnected = new ArrayList<>();
-        for (int i = 0; i < n; i++) unconnected.add(i);
-        List<Integer> connected = new ArrayList<>();
-        int startIndex = random.nextInt(unconnected.size());
-        connected.add(unconnected.remove(startIndex));
-
-        while (!unconnected.isEmpty()) {
-            int bestUn = -1;
-            int bestConn = -1;
-            int bestDist = Integer.MAX_VALUE;
-            for (int uc : unconnected) {
-                for (int c : connected) {
-                    int dist = distances[uc][c];
-                    if (dist < bestDist) {
-                        bestDist = dist;
-                        bestUn = uc;
-                        bestConn = c;
-                    }
+        // Each pending room remembers its distance to the closest connected room and which room
+        // that was. Only strictly shorter distances replace it, so ties keep the earliest
+        // connected room, and picking the lowest index among equal distances keeps the order
+        // of the original pending x connected scan.
+        int[] cx = new int[n];
+        int[] cy = new int[n];
+        for (int i = 0; i < n; i++) {
+            cx[i] = rooms.get(i).centerX();
+            cy[i] = rooms.get(i).centerY();
+        }
+        int startIndex = ctx.random(CounterRandom.START_ROOM, 0).nextInt(n);
+        int[] pending = new int[n - 1];
+        int pendingCount = 0;
+        int[] bestDist = new int[n];
+        int[] bestConn = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (i == startIndex) continue;
+            pending[pendingCount++] = i;
+            bestDist[i] = Math.abs(cx[i] - cx[startIndex]) + Math.abs(cy[i] - cy[startIndex]);
+            bestConn[i] = startIndex;
+        }
+
+        while (pendingCount > 0) {
+            int pick = 0;
+            for (int p = 1; p < pendingCount; p++) {
+                int uc = pending[p];
+                int best = pending[pick];
+                if (bestDist[uc] < bestDist[best] || (bestDist[uc] == bestDist[best] && uc < best)) pick = p;
+            }
+            int joined = pending[pick];
+            filled += connectPair(ctx, rooms.get(bestConn[joined]), rooms.get(joined));
+            ctx.edges.add(new int[]{bestConn[joined], joined});
+            ctx.metrics.edges++;
+            pending[pick] = pending[--pendingCount];
+            for (int p = 0; p < pendingCount; p++) {
+                int uc = pending[p];
+                int dist = Math.abs(cx[uc] - cx[joined]) + Math.abs(cy[uc] - cy[joined]);
+                if (dist < bestDist[uc]) {
+                    bestDist[uc] = dist;
+                    bestConn[uc] = joined;
                 }
             }
-            if (bestUn == -1 || bestConn == -1) break;
-            filled += carveHallwayBetween(grid, rooms.get(bestConn), rooms.get(bestUn), config.hallwayWidth);
-            connected.add(bestUn);
-            unconnected.remove(Integer.valueOf(bestUn));
         }
 
         return filled;
     }
 
-    private int[][] buildDistanceMatrix(List<Room> rooms) {
-        // Precompute Manhattan distances between room centers.
-        int n = rooms.size();
-        int[][] dist = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j < n; j++) {
-                int d = manhattan(center(rooms.get(i)), center(rooms.get(j)));
-                dist[i][j] = d;
-                dist[j][i] = d;
-            }
-        }
-        return dist;
+    @Override
+    protected int connectPair(GenerationContext ctx, Room a, Room b) {
+        return carveHallwayBetween(ctx, a, b, ctx.config.hallwayWidth);
     }
 
-    private int carveHallwayBetween(Tile[][] grid, Room a, Room b, int width) {
+    private int carveHallwayBetween(GenerationContext ctx, Room a, Room b, int width) {
+        TileGrid grid = ctx.grid;
+        if (ctx.config.router == RouterMode.ASTAR) {
+            // Route between the closest wall midpoints; the router finds its own straight runs.
+            ConnectionPointPair pair = closestWallMidpoints(a, b, grid.width(), grid.height());
+            return carveCorridor(ctx, TileGrid.pack(pair.start.x, pair.start.y), TileGrid.pack(pair.end.x, pair.end.y), width);
+        }
         // Prefer direct straight connections when wall projections overlap.
-        int straight = tryStraightOverlap(grid, a, b, width);
+        int straight = tryStraightOverlap(ctx, a, b, width);
         if (straight >= 0) {
             return straight;
         }
 
         // Otherwise determine closest pair of wall midpoints and carve a Z-shaped hallway.
-        ConnectionPointPair pair = closestWallMidpoints(a, b, grid[0].length, grid.length);
+        ConnectionPointPair pair = closestWallMidpoints(a, b, grid.width(), grid.height());
         if (pair == null) {
             return 0;
         }
@@ -70,12 +85,12 @@ public final class ClosestWallConnectorGenerator extends AbstractRoomMazeGenerat
         ConnectionPoint end = pair.end;
         // If aligned horizontally or vertically, carve straight instead of introducing bends.
         if (start.x == end.x || start.y == end.y) {
-            return fillLine(grid, start.x, start.y, end.x, end.y, width);
+            return fillLine(ctx, start.x, start.y, end.x, end.y, width);
         }
-        return carveZPath(grid, start, end, width);
+        return carveZPath(ctx, start, end, width);
     }
 
-    private int tryStraightOverlap(Tile[][] grid, Room a, Room b, int width) {
+    private int tryStraightOverlap(GenerationContext ctx, Room a, Room b, int width) {
         int overlapTop = Math.max(a.y, b.y);
         int overlapBottom = Math.min(a.y + a.height - 1, b.y + b.height - 1);
         if (overlapTop <= overlapBottom) {
@@ -83,11 +98,11 @@ public final class ClosestWallConnectorGenerator extends AbstractRoomMazeGenerat
             if (a.x + a.width <= b.x) {
                 int startX = a.x + a.width;
                 int endX = b.x - 1;
-                return fillLine(grid, startX, y, endX, y, width);
+                return fillLine(ctx, startX, y, endX, y, width);
             } else if (b.x + b.width <= a.x) {
                 int startX = a.x - 1;
                 int endX = b.x + b.width;
-                return fillLine(grid, startX, y, endX, y, width);
+                return fillLine(ctx, startX, y, endX, y, width);
             }
         }
 
@@ -98,11 +113,11 @@ public final class ClosestWallConnectorGenerator extends AbstractRoomMazeGenerat
             if (a.y + a.height <= b.y) {
                 int startY = a.y + a.height;
                 int endY = b.y - 1;
-                return fillLine(grid, x, startY, x, endY, width);
+                return fillLine(ctx, x, startY, x, endY, width);
             } else if (b.y + b.height <= a.y) {
                 int startY = a.y - 1;
                 int endY = b.y + b.height;
-                return fillLine(grid, x, startY, x, endY, width);
+                return fillLine(ctx, x, startY, x, endY, width);
             }
         }
         return -1;
@@ -138,19 +153,19 @@ public final class ClosestWallConnectorGenerator extends AbstractRoomMazeGenerat
         return points;
     }
 
-    private int carveZPath(Tile[][] grid, ConnectionPoint start, ConnectionPoint end, int width) {
+    private int carveZPath(GenerationContext ctx, ConnectionPoint start, ConnectionPoint end, int width) {
         // Carve a Z-shaped connection: exit perpendicular, travel diagonally via midpoint, then approach the target.
         int filled = 0;
         if (start.side == Side.LEFT || start.side == Side.RIGHT) {
-            int midX = clamp((start.x + end.x) / 2, 0, grid[0].length - 1);
-            filled += fillLine(grid, start.x, start.y, midX, start.y, width);
-            filled += fillLine(grid, midX, start.y, midX, end.y, width);
-            filled += fillLine(grid, midX, end.y, end.x, end.y, width);
+            int midX = clamp((start.x + end.x) / 2, 0, ctx.grid.width() - 1);
+            filled += fillLine(ctx, start.x, start.y, midX, start.y, width);
+            filled += fillLine(ctx, midX, start.y, midX, end.y, width);
+            filled += fillLine(ctx, midX, end.y, end.x, end.y, width);
         } else {
-            int midY = clamp((start.y + end.y) / 2, 0, grid.length - 1);
-            filled += fillLine(grid, start.x, start.y, start.x, midY, width);
-            filled += fillLine(grid, start.x, midY, end.x, midY, width);
-            filled += fillLine(grid, end.x, midY, end.x, end.y, width);
+            int midY = clamp((start.y + end.y) / 2, 0, ctx.grid.height() - 1);
+            filled += fillLine(ctx, start.x, start.y, start.x, midY, width);
+            filled += fillLine(ctx, start.x, midY, end.x, midY, width);
+            filled += fillLine(ctx, end.x, midY, end.x, end.y, width);
         }
         return filled;
     }
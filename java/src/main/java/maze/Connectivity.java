@@ -0,0 +1,411 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Connected components of the filled tiles of a finished maze, and which rooms they reach.
+ *
+ * <p>The grid is labelled as horizontal runs of filled tiles, read a word (32 tiles) at a time
+ * from the packed rows: each run is one element of a {@link DisjointSet} and is joined to the
+ * runs it overlaps in the row above (4-connectivity). The pass is linear in the grid words
+ * plus the runs and holds two rows of run bounds and two ints per run. With several threads
+ * the rows are split into strips that are labelled independently and then merged along the
+ * strip borders.
+ *
+ * <p>The main component is the one holding the most rooms; every other room is unreachable.
+ * Distances between rooms are walked on demand with {@link #distancesFrom}. A report describes
+ * the grid as it was analysed; later edits to the grid are not reflected.
+ */
+public final class Connectivity {
+    private static final int MIN_STRIP_ROWS = 64;
+    private static final int BUCKET_SHIFT = 6;
+
+    public final int components; // 4-connected components of filled tiles, rooms or not
+    public final int roomComponents; // components holding at least one room
+    public final int[] roomComponent; // component of each room, numbered by first room; -1 if unfilled
+    public final int[] unreachableRooms; // rooms outside the main component, ascending
+    public final int repairedLinks; // corridors carved by a repair pass
+    public final long nanos; // analysis and repair time
+
+    private final TileGrid grid;
+    private final List<Room> rooms;
+
+    private Connectivity(TileGrid grid, List<Room> rooms, int components, int roomComponents, int[] roomComponent,
+                         int[] unreachableRooms, int repairedLinks, long nanos) {
+        this.grid = grid;
+        this.rooms = rooms;
+        this.components = components;
+        this.roomComponents = roomComponents;
+        this.roomComponent = roomComponent;
+        this.unreachableRooms = unreachableRooms;
+        this.repairedLinks = repairedLinks;
+        this.nanos = nanos;
+    }
+
+    public boolean connected() {
+        return unreachableRooms.length == 0;
+    }
+
+    public static Connectivity analyze(TileGrid grid, List<Room> rooms, int threads) {
+        long start = System.nanoTime();
+        Connectivity report = label(grid, rooms, threads, 0);
+        return report.withNanos(System.nanoTime() - start);
+    }
+
+    static MazeResult check(MazeResult result, MazeConfig config, AbstractRoomMazeGenerator connector, int threads) {
+        // Analyse a generated maze and, in repair mode, join stray components to the main one
+        // along the shortest spanning-tree edges between them, carved by the generator's connector.
+        long start = System.nanoTime();
+        Connectivity report = label(result.grid, result.rooms, threads, 0);
+        List<int[]> edges = result.edges;
+        if (config.connectivity == ConnectivityMode.REPAIR && !report.connected()) {
+            List<Room> rooms = result.rooms;
+            GenerationContext ctx = new GenerationContext(config, result.grid, rooms, AbstractRoomMazeGenerator.newRandom(config.seed, config.rng));
+            DisjointSet groups = new DisjointSet(rooms.size());
+            int[] first = new int[report.roomComponents];
+            Arrays.fill(first, -1);
+            for (int i = 0; i < rooms.size(); i++) {
+                int c = report.roomComponent[i];
+                if (c < 0) continue;
+                if (first[c] < 0) {
+                    first[c] = i;
+                } else {
+                    groups.union(first[c], i);
+                }
+            }
+            List<int[]> joins = GraphUtil.buildRoomMst(rooms);
+            joins.sort((p, q) -> Integer.compare(length(rooms, p), length(rooms, q)));
+            edges = new ArrayList<>(edges);
+            int repaired = 0;
+            for (int[] j : joins) {
+                if (!groups.union(j[0], j[1])) continue;
+                connector.connectPair(ctx, rooms.get(j[0]), rooms.get(j[1]));
+                edges.add(j);
+                repaired++;
+            }
+            // Check again: a link clamped at the grid edge can still miss its room.
+            report = label(result.grid, rooms, threads, repaired);
+        }
+        report = report.withNanos(System.nanoTime() - start);
+        return new MazeResult(result.grid, result.rooms, edges, result.targetFilled, result.placedFilled,
+                result.metrics, report);
+    }
+
+    public int[] distancesFrom(int source) {
+        // Fewest steps over filled tiles from any tile of the source room to the nearest tile of
+        // each room, by breadth-first search; -1 for rooms it cannot reach. One call per source
+        // room gives the pairwise distances.
+        int[] dist = new int[rooms.size()];
+        Arrays.fill(dist, -1);
+        dist[source] = 0;
+        int width = grid.width();
+        int height = grid.height();
+        int bucketsX = ((width - 1) >> BUCKET_SHIFT) + 1;
+        int[][] buckets = buckets(bucketsX, ((height - 1) >> BUCKET_SHIFT) + 1);
+        long[] visited = new long[(int) ((grid.area() + 63) >>> 6)];
+        LongStack current = new LongStack(1024);
+        LongStack next = new LongStack(1024);
+        Room s = rooms.get(source);
+        for (int y = s.y; y < s.y + s.height; y++) {
+            for (int x = s.x; x < s.x + s.width; x++) {
+                long bit = (long) y * width + x;
+                visited[(int) (bit >>> 6)] |= 1L << bit;
+                current.push(TileGrid.pack(x, y));
+            }
+        }
+        int[] dx = {1, -1, 0, 0};
+        int[] dy = {0, 0, 1, -1};
+        for (int level = 1; !current.isEmpty(); level++) {
+            while (!current.isEmpty()) {
+                long p = current.pop();
+                int x = TileGrid.unpackX(p);
+                int y = TileGrid.unpackY(p);
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + dx[d];
+                    int ny = y + dy[d];
+                    if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                    int code = grid.code(nx, ny);
+                    if (code == 0) continue;
+                    long bit = (long) ny * width + nx;
+                    int word = (int) (bit >>> 6);
+                    if ((visited[word] & 1L << bit) != 0) continue;
+                    visited[word] |= 1L << bit;
+                    if (code == Tile.ROOM.ordinal()) {
+                        int r = roomAt(buckets[(ny >> BUCKET_SHIFT) * bucketsX + (nx >> BUCKET_SHIFT)], nx, ny);
+                        if (r >= 0 && dist[r] < 0) dist[r] = level;
+                    }
+                    next.push(TileGrid.pack(nx, ny));
+                }
+            }
+            LongStack t = current;
+            current = next;
+            next = t;
+        }
+        return dist;
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT, "Connectivity: %d components (%d with rooms), %d of %d rooms unreachable%s (%.1f ms).",
+                components, roomComponents, unreachableRooms.length, rooms.size(),
+                repairedLinks > 0 ? ", " + repairedLinks + " links repaired" : "", nanos / 1e6);
+    }
+
+    private Connectivity withNanos(long nanos) {
+        return new Connectivity(grid, rooms, components, roomComponents, roomComponent, unreachableRooms, repairedLinks, nanos);
+    }
+
+    private static Connectivity label(TileGrid grid, List<Room> rooms, int threads, int repairedLinks) {
+        int height = grid.height();
+        int strips = Math.max(1, Math.min(threads, height / MIN_STRIP_ROWS));
+        int stripHeight = (height + strips - 1) / strips;
+        strips = (height + stripHeight - 1) / stripHeight;
+
+        // Rooms by top row, so each room finds its run while that row is labelled.
+        int[] roomRowStart = new int[height + 1];
+        for (Room r : rooms) roomRowStart[r.y + 1]++;
+        for (int y = 0; y < height; y++) roomRowStart[y + 1] += roomRowStart[y];
+        int[] roomsByRow = new int[rooms.size()];
+        int[] fill = Arrays.copyOf(roomRowStart, height);
+        for (int i = 0; i < rooms.size(); i++) roomsByRow[fill[rooms.get(i).y]++] = i;
+
+        // Run ids are global and row-major: row y's runs start at rowRuns[y].
+        long[] rowRuns = new long[height + 1];
+        int[] roomRun = new int[rooms.size()];
+        int total;
+        DisjointSet all;
+        if (strips == 1) {
+            countRuns(grid, 0, height, rowRuns);
+            total = prefixRuns(rowRuns);
+            all = new DisjointSet(total);
+            labelStrip(grid, 0, height, rowRuns, all, 0, rooms, roomRowStart, roomsByRow, roomRun);
+        } else {
+            int count = strips;
+            int rowsPer = stripHeight;
+            run(strips, s -> countRuns(grid, s * rowsPer, Math.min(height, (s + 1) * rowsPer), rowRuns));
+            total = prefixRuns(rowRuns);
+            all = new DisjointSet(total);
+            DisjointSet[] local = new DisjointSet[count];
+            run(strips, s -> {
+                int y0 = s * rowsPer;
+                int y1 = Math.min(height, y0 + rowsPer);
+                local[s] = new DisjointSet((int) (rowRuns[y1] - rowRuns[y0]));
+                labelStrip(grid, y0, y1, rowRuns, local[s], (int) rowRuns[y0], rooms, roomRowStart, roomsByRow, roomRun);
+            });
+            // Fold each strip's sets into the global one, then join runs across strip borders.
+            int[] above = new int[grid.width() / 2 + 1];
+            int[] aboveEnd = new int[above.length];
+            int[] below = new int[above.length];
+            int[] belowEnd = new int[above.length];
+            for (int s = 0; s < count; s++) {
+                int base = (int) rowRuns[s * rowsPer];
+                int size = (int) (rowRuns[Math.min(height, (s + 1) * rowsPer)] - base);
+                for (int i = 0; i < size; i++) {
+                    int root = local[s].find(i);
+                    if (root != i) all.union(base + i, base + root);
+                }
+                if (s == 0) continue;
+                int y = s * rowsPer;
+                int na = runs(grid, y - 1, above, aboveEnd);
+                int nb = runs(grid, y, below, belowEnd);
+                link(above, aboveEnd, na, (int) rowRuns[y - 1], below, belowEnd, nb, (int) rowRuns[y], all, 0);
+            }
+        }
+
+        // Number components by the first room in them; the main one holds the most rooms.
+        int[] dense = new int[total];
+        Arrays.fill(dense, -1);
+        int[] roomComponent = new int[rooms.size()];
+        int[] roomsIn = new int[rooms.size()];
+        int roomComponents = 0;
+        for (int i = 0; i < rooms.size(); i++) {
+            if (roomRun[i] < 0) {
+                roomComponent[i] = -1;
+                continue;
+            }
+            int root = all.find(roomRun[i]);
+            if (dense[root] < 0) dense[root] = roomComponents++;
+            roomComponent[i] = dense[root];
+            roomsIn[dense[root]]++;
+        }
+        int main = 0;
+        for (int c = 1; c < roomComponents; c++) {
+            if (roomsIn[c] > roomsIn[main]) main = c;
+        }
+        int unreachable = rooms.size() - (roomComponents > 0 ? roomsIn[main] : 0);
+        int[] unreachableRooms = new int[unreachable];
+        for (int i = 0, k = 0; i < rooms.size(); i++) {
+            if (roomComponent[i] != main) unreachableRooms[k++] = i;
+        }
+        return new Connectivity(grid, rooms, all.sets(), roomComponents, roomComponent, unreachableRooms, repairedLinks, 0);
+    }
+
+    private static void countRuns(TileGrid grid, int y0, int y1, long[] rowRuns) {
+        // Runs per row land in rowRuns[y + 1]; prefixRuns turns them into offsets.
+        int wordsPerRow = grid.wordsPerRow();
+        for (int y = y0; y < y1; y++) {
+            long carry = 0;
+            int count = 0;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long occ = occupied(grid.word(y, i));
+                count += Long.bitCount(occ & ~(occ << 2 | carry));
+                carry = occ >>> 62;
+            }
+            rowRuns[y + 1] = count;
+        }
+    }
+
+    private static int prefixRuns(long[] rowRuns) {
+        // Turn the per-row counts into offsets and return the total.
+        for (int y = 1; y < rowRuns.length; y++) rowRuns[y] += rowRuns[y - 1];
+        long total = rowRuns[rowRuns.length - 1];
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many tile runs to label: " + total);
+        }
+        return (int) total;
+    }
+
+    private static void labelStrip(TileGrid grid, int y0, int y1, long[] rowRuns, DisjointSet set, int base,
+                                   List<Room> rooms, int[] roomRowStart, int[] roomsByRow, int[] roomRun) {
+        // Ids in set are global run ids minus base.
+        int capacity = grid.width() / 2 + 1;
+        int[] prevStart = new int[capacity];
+        int[] prevEnd = new int[capacity];
+        int[] curStart = new int[capacity];
+        int[] curEnd = new int[capacity];
+        int prevCount = 0;
+        for (int y = y0; y < y1; y++) {
+            int count = runs(grid, y, curStart, curEnd);
+            int rowBase = (int) rowRuns[y];
+            if (y > y0) link(prevStart, prevEnd, prevCount, (int) rowRuns[y - 1], curStart, curEnd, count, rowBase, set, base);
+            for (int k = roomRowStart[y]; k < roomRowStart[y + 1]; k++) {
+                int i = roomsByRow[k];
+                int x = rooms.get(i).x;
+                int idx = Arrays.binarySearch(curStart, 0, count, x);
+                if (idx < 0) idx = -idx - 2;
+                roomRun[i] = idx >= 0 && curEnd[idx] >= x ? rowBase + idx : -1;
+            }
+            int[] t = prevStart;
+            prevStart = curStart;
+            curStart = t;
+            t = prevEnd;
+            prevEnd = curEnd;
+            curEnd = t;
+            prevCount = count;
+        }
+    }
+
+    private static void link(int[] aStart, int[] aEnd, int na, int aBase, int[] bStart, int[] bEnd, int nb, int bBase,
+                             DisjointSet set, int base) {
+        // Join every pair of runs in adjacent rows that share a column; both lists are sorted.
+        int i = 0;
+        int j = 0;
+        while (i < na && j < nb) {
+            if (aStart[i] <= bEnd[j] && bStart[j] <= aEnd[i]) set.union(aBase + i - base, bBase + j - base);
+            if (aEnd[i] < bEnd[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+    }
+
+    private static int runs(TileGrid grid, int y, int[] starts, int[] ends) {
+        // Inclusive [start, end] columns of the filled runs of row y, left to right. A tile
+        // starts a run when the one before it is empty and ends one when the next is empty;
+        // the neighbours across word boundaries come from the adjacent words.
+        int wordsPerRow = grid.wordsPerRow();
+        int ns = 0;
+        int ne = 0;
+        long carry = 0;
+        long occ = occupied(grid.word(y, 0));
+        for (int i = 0; i < wordsPerRow; i++) {
+            long next = i + 1 < wordsPerRow ? occupied(grid.word(y, i + 1)) : 0;
+            long s = occ & ~(occ << 2 | carry);
+            long e = occ & ~(occ >>> 2 | next << 62);
+            int x0 = i * TileGrid.TILES_PER_WORD;
+            for (; s != 0; s &= s - 1) starts[ns++] = x0 + (Long.numberOfTrailingZeros(s) >>> 1);
+            for (; e != 0; e &= e - 1) ends[ne++] = x0 + (Long.numberOfTrailingZeros(e) >>> 1);
+            carry = occ >>> 62;
+            occ = next;
+        }
+        return ns;
+    }
+
+    private static long occupied(long word) {
+        // One bit (the low bit of each tile) per filled tile.
+        return (word | word >>> 1) & TileGrid.LOW_BITS;
+    }
+
+    private int[][] buckets(int bucketsX, int bucketsY) {
+        // Room indices per 64x64 cell of the grid, for mapping a room tile back to its room.
+        int[] counts = new int[bucketsX * bucketsY];
+        for (Room r : rooms) {
+            for (int by = r.y >> BUCKET_SHIFT; by <= (r.y + r.height - 1) >> BUCKET_SHIFT; by++) {
+                for (int bx = r.x >> BUCKET_SHIFT; bx <= (r.x + r.width - 1) >> BUCKET_SHIFT; bx++) {
+                    counts[by * bucketsX + bx]++;
+                }
+            }
+        }
+        int[][] buckets = new int[counts.length][];
+        for (int b = 0; b < counts.length; b++) buckets[b] = new int[counts[b]];
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < rooms.size(); i++) {
+            Room r = rooms.get(i);
+            for (int by = r.y >> BUCKET_SHIFT; by <= (r.y + r.height - 1) >> BUCKET_SHIFT; by++) {
+                for (int bx = r.x >> BUCKET_SHIFT; bx <= (r.x + r.width - 1) >> BUCKET_SHIFT; bx++) {
+                    int b = by * bucketsX + bx;
+                    buckets[b][counts[b]++] = i;
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private int roomAt(int[] bucket, int x, int y) {
+        for (int i : bucket) {
+            Room r = rooms.get(i);
+            if (x >= r.x && x < r.x + r.width && y >= r.y && y < r.y + r.height) return i;
+        }
+        return -1;
+    }
+
+    private static int length(List<Room> rooms, int[] edge) {
+        Room a = rooms.get(edge[0]);
+        Room b = rooms.get(edge[1]);
+        return Math.abs(a.centerX() - b.centerX()) + Math.abs(a.centerY() - b.centerY());
+    }
+
+    private static void run(int strips, StripTask task) {
+        // One task per strip on a pool of that size; strips touch disjoint rows and run ids.
+        List<Callable<Void>> tasks = new ArrayList<>(strips);
+        for (int s = 0; s < strips; s++) {
+            int strip = s;
+            tasks.add(() -> {
+                task.run(strip);
+                return null;
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(strips);
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while labelling strips", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Strip labelling failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private interface StripTask {
+        void run(int strip);
+    }
+}
@@ -0,0 +1,27 @@
+package maze;
+
+public enum ConnectivityMode {
+    // No analysis after generation (the original behaviour).
+    OFF("off"),
+    // Label the finished grid and report components and unreachable rooms.
+    REPORT("report"),
+    // As report, then carve links to rooms outside the main component and check again.
+    REPAIR("repair");
+
+    private final String cliName;
+
+    ConnectivityMode(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String cliName() {
+        return cliName;
+    }
+
+    public static ConnectivityMode fromName(String name) {
+        for (ConnectivityMode mode : values()) {
+            if (mode.cliName.equals(name)) return mode;
+        }
+        throw new IllegalArgumentException("Unknown connectivity mode: " + name);
+    }
+}
@@ -0,0 +1,58 @@
+package maze;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Counter-based random numbers: draw {@code d} of decision {@code index} in stream
+ * {@code stream} is a pure function of (seed, stream, index, d), computed with the SplitMix64
+ * finalizer.
+ *
+ * <p>Generators position the cursor with {@link #at} before each keyed decision (a room
+ * attempt, a corridor), so a decision's values do not depend on how many draws came before it
+ * or on which thread makes it; skipping, reordering or parallelising decisions leaves the
+ * others unchanged. A draw is a multiply-add and one mix with no shared state, which is cheaper
+ * than {@link java.util.Random}'s atomic update. Instances are cursors and not thread-safe;
+ * give each generation call its own.
+ */
+public final class CounterRandom implements RandomGenerator {
+    public static final int ROOM_ATTEMPT = 1;
+    public static final int CORRIDOR = 2;
+    public static final int START_ROOM = 3;
+
+    private static final long GOLDEN = 0x9E37_79B9_7F4A_7C15L;
+
+    private final long seed;
+    private long key;
+    private long draw;
+
+    public CounterRandom(long seed) {
+        this.seed = seed;
+        this.key = key(seed, 0, 0);
+    }
+
+    public CounterRandom at(int stream, long index) {
+        key = key(seed, stream, index);
+        draw = 0;
+        return this;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix(key + ++draw * GOLDEN);
+    }
+
+    public static long value(long seed, int stream, long index, long draw) {
+        // The draw-th value (from 1) of a decision, without a cursor.
+        return mix(key(seed, stream, index) + draw * GOLDEN);
+    }
+
+    static long key(long seed, int stream, long index) {
+        return mix(mix(seed ^ stream * GOLDEN) + index * GOLDEN);
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,46 @@
+package maze;
+
+/** Union-find over the integers {@code 0..n-1} with union by size and path halving. */
+public final class DisjointSet {
+    private final int[] parent;
+    private final int[] size;
+    private int sets;
+
+    public DisjointSet(int n) {
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        sets = n;
+    }
+
+    public int sets() {
+        return sets;
+    }
+
+    public int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    public boolean union(int a, int b) {
+        // Returns false when a and b were already in the same set.
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) return false;
+        if (size[ra] < size[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        sets--;
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Maximal empty rectangles of a grid, kept up to date as rooms are placed.
+ *
+ * <p>Every free tile lies in at least one listed rectangle and no rectangle contains another.
+ * Rectangles narrower or shorter than the smallest room are dropped because no room can use
+ * them, which keeps the list proportional to the usable free space.
+ */
+public final class FreeRectList {
+    private final int minWidth;
+    private final int minHeight;
+
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int[] ws = new int[16];
+    private int[] hs = new int[16];
+    private int size;
+
+    public FreeRectList(int width, int height, int minWidth, int minHeight) {
+        this.minWidth = Math.max(1, minWidth);
+        this.minHeight = Math.max(1, minHeight);
+        push(0, 0, width, height);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int x(int i) {
+        return xs[i];
+    }
+
+    public int y(int i) {
+        return ys[i];
+    }
+
+    public int width(int i) {
+        return ws[i];
+    }
+
+    public int height(int i) {
+        return hs[i];
+    }
+
+    public long placements(int i, int w, int h) {
+        // Number of distinct top-left positions for a w x h rectangle inside free rect i.
+        if (ws[i] < w || hs[i] < h) return 0;
+        return (long) (ws[i] - w + 1) * (hs[i] - h + 1);
+    }
+
+    public void occupy(int x, int y, int w, int h) {
+        // Carve the rectangle out of every free rect it touches, keeping the maximal leftovers.
+        int rx1 = x + w;
+        int ry1 = y + h;
+        int firstNew = size;
+        int i = 0;
+        while (i < firstNew) {
+            int fx = xs[i], fy = ys[i], fx1 = fx + ws[i], fy1 = fy + hs[i];
+            if (fx >= rx1 || x >= fx1 || fy >= ry1 || y >= fy1) {
+                i++;
+                continue;
+            }
+            if (x > fx) push(fx, fy, x - fx, fy1 - fy);
+            if (rx1 < fx1) push(rx1, fy, fx1 - rx1, fy1 - fy);
+            if (y > fy) push(fx, fy, fx1 - fx, y - fy);
+            if (ry1 < fy1) push(fx, ry1, fx1 - fx, fy1 - ry1);
+            // Swap-remove the split rect; the tail rect slides into slot i and is checked next.
+            firstNew--;
+            size--;
+            move(firstNew, i);
+            move(size, firstNew);
+        }
+        pruneContained(firstNew);
+    }
+
+    private void pruneContained(int firstNew) {
+        // New pieces may sit inside older rects or inside each other; drop the redundant ones.
+        for (int i = firstNew; i < size; ) {
+            boolean redundant = false;
+            for (int j = 0; j < size; j++) {
+                if (j != i && contains(j, i) && (!contains(i, j) || j < i)) {
+                    redundant = true;
+                    break;
+                }
+            }
+            if (redundant) {
+                size--;
+                move(size, i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private boolean contains(int outer, int inner) {
+        return xs[inner] >= xs[outer]
+                && ys[inner] >= ys[outer]
+                && xs[inner] + ws[inner] <= xs[outer] + ws[outer]
+                && ys[inner] + hs[inner] <= ys[outer] + hs[outer];
+    }
+
+    private void push(int x, int y, int w, int h) {
+        if (w < minWidth || h < minHeight) return;
+        if (size == xs.length) {
+            int cap = size * 2;
+            xs = Arrays.copyOf(xs, cap);
+            ys = Arrays.copyOf(ys, cap);
+            ws = Arrays.copyOf(ws, cap);
+            hs = Arrays.copyOf(hs, cap);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        ws[size] = w;
+        hs[size] = h;
+        size++;
+    }
+
+    private void move(int from, int to) {
+        xs[to] = xs[from];
+        ys[to] = ys[from];
+        ws[to] = ws[from];
+        hs[to] = hs[from];
+    }
+}
@@ -0,0 +1,48 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Mutable state of a single {@code generate} call: the grid being carved, the rooms placed so
+ * far, the random stream driving both and the metrics the phases record.
+ *
+ * <p>Generators keep no per-call fields of their own, so one generator instance can serve any
+ * number of concurrent calls as long as each call works on its own context.
+ */
+public final class GenerationContext {
+    public final MazeConfig config;
+    public final TileGrid grid;
+    public final List<Room> rooms;
+    public final RandomGenerator random;
+    public final GenerationMetrics.Recorder metrics = new GenerationMetrics.Recorder();
+    // Packed coordinates of the tiles at both ends of every carved segment: the only places a
+    // dead end can start, so pruning never has to scan the grid.
+    public final LongStack frontier = new LongStack(64);
+    // Room index pairs of the spanning-tree edges carved so far.
+    public final List<int[]> edges = new ArrayList<>();
+    private AStarRouter router;
+    // Set in counter mode, where random(stream, index) repositions it per decision.
+    private final CounterRandom counter;
+
+    public GenerationContext(MazeConfig config, TileGrid grid, List<Room> rooms, RandomGenerator random) {
+        this.config = config;
+        this.grid = grid;
+        this.rooms = rooms;
+        this.random = random;
+        this.counter = random instanceof CounterRandom c ? c : null;
+    }
+
+    public RandomGenerator random(int stream, long index) {
+        // The draws for one keyed decision (see CounterRandom). A sequential stream ignores the
+        // key and carries on, so legacy seeds keep their exact sequence.
+        return counter != null ? counter.at(stream, index) : random;
+    }
+
+    public AStarRouter router() {
+        // Created on first use so L-shaped runs never allocate the search buffers.
+        if (router == null) router = new AStarRouter();
+        return router;
+    }
+}
@@ -0,0 +1,185 @@
+package maze;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-phase cost of one generation: wall time and bytes allocated on the generating thread,
+ * plus the work counters of each phase.
+ *
+ * <p>Allocated bytes come from the HotSpot {@code ThreadMXBean} and are -1 where the JVM cannot
+ * measure them (e.g. on virtual threads). Results merged from several threads, such as the
+ * regions of the parallel algorithm, sum each phase across threads.
+ */
+public final class GenerationMetrics {
+    public static final int PLACEMENT = 0;
+    public static final int CONNECTION = 1;
+    public static final int PRUNING = 2;
+    static final String[] PHASES = {"placement", "connection", "pruning"};
+
+    public static final GenerationMetrics NONE = new GenerationMetrics(new long[PHASES.length], new long[PHASES.length], 0, 0, 0, 0, 0);
+
+    private final long[] nanos;
+    private final long[] allocatedBytes;
+    public final long placementAttempts;
+    public final long placementRejections;
+    public final long edges;
+    public final long tilesCarved;
+    public final long tilesPruned;
+
+    GenerationMetrics(long[] nanos, long[] allocatedBytes, long placementAttempts, long placementRejections,
+                      long edges, long tilesCarved, long tilesPruned) {
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+        this.placementAttempts = placementAttempts;
+        this.placementRejections = placementRejections;
+        this.edges = edges;
+        this.tilesCarved = tilesCarved;
+        this.tilesPruned = tilesPruned;
+    }
+
+    public long nanos(int phase) {
+        return nanos[phase];
+    }
+
+    public long allocatedBytes(int phase) {
+        return allocatedBytes[phase];
+    }
+
+    public long totalNanos() {
+        long total = 0;
+        for (long n : nanos) total += n;
+        return total;
+    }
+
+    public long totalAllocatedBytes() {
+        long total = 0;
+        for (long b : allocatedBytes) {
+            if (b < 0) return -1;
+            total += b;
+        }
+        return total;
+    }
+
+    public static GenerationMetrics sum(List<GenerationMetrics> parts) {
+        long[] nanos = new long[PHASES.length];
+        long[] bytes = new long[PHASES.length];
+        long attempts = 0, rejections = 0, edges = 0, carved = 0, pruned = 0;
+        for (GenerationMetrics m : parts) {
+            for (int p = 0; p < PHASES.length; p++) {
+                nanos[p] += m.nanos[p];
+                bytes[p] = bytes[p] < 0 || m.allocatedBytes[p] < 0 ? -1 : bytes[p] + m.allocatedBytes[p];
+            }
+            attempts += m.placementAttempts;
+            rejections += m.placementRejections;
+            edges += m.edges;
+            carved += m.tilesCarved;
+            pruned += m.tilesPruned;
+        }
+        return new GenerationMetrics(nanos, bytes, attempts, rejections, edges, carved, pruned);
+    }
+
+    public String summary() {
+        // One line for the CLI: time and allocation per phase.
+        StringBuilder sb = new StringBuilder("Phases:");
+        for (int p = 0; p < PHASES.length; p++) {
+            sb.append(p == 0 ? " " : ", ").append(PHASES[p])
+                    .append(String.format(Locale.ROOT, " %.1f ms", nanos[p] / 1e6));
+            if (allocatedBytes[p] >= 0) {
+                sb.append(String.format(Locale.ROOT, " / %.1f MB", allocatedBytes[p] / (1024.0 * 1024.0)));
+            }
+        }
+        return sb.append('.').toString();
+    }
+
+    public String toJson() {
+        long[][] counters = {
+                {placementAttempts, placementRejections},
+                {edges, tilesCarved},
+                {tilesPruned}};
+        String[][] names = {
+                {"attempts", "rejections"},
+                {"edges", "tilesCarved"},
+                {"tilesRemoved"}};
+        StringBuilder sb = new StringBuilder("{");
+        for (int p = 0; p < PHASES.length; p++) {
+            if (p > 0) sb.append(',');
+            sb.append('"').append(PHASES[p]).append("\":{\"nanos\":").append(nanos[p])
+                    .append(",\"allocatedBytes\":").append(allocatedBytes[p]);
+            for (int c = 0; c < counters[p].length; c++) {
+                sb.append(",\"").append(names[p][c]).append("\":").append(counters[p][c]);
+            }
+            sb.append('}');
+        }
+        return sb.append(",\"totalNanos\":").append(totalNanos())
+                .append(",\"totalAllocatedBytes\":").append(totalAllocatedBytes())
+                .append('}').toString();
+    }
+
+    /**
+     * Collects the metrics of one generation call. Phases must be measured on the thread that
+     * runs them; the counters are plain fields bumped by the phase code.
+     */
+    public static final class Recorder {
+        private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+        public long placementAttempts;
+        public long placementRejections;
+        public long edges;
+        public long tilesCarved;
+        public long tilesPruned;
+
+        private final long[] nanos = new long[PHASES.length];
+        private final long[] allocatedBytes = new long[PHASES.length];
+        private long startNanos;
+        private long startBytes;
+        private PhaseEvent event;
+
+        public void begin() {
+            event = new PhaseEvent();
+            event.begin();
+            startBytes = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        public void end(int phase, MazeConfig config) {
+            nanos[phase] = System.nanoTime() - startNanos;
+            long bytes = allocatedBytes();
+            allocatedBytes[phase] = bytes < 0 || startBytes < 0 ? -1 : bytes - startBytes;
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = PHASES[phase];
+                event.algorithm = config.algorithm;
+                event.width = config.width;
+                event.height = config.height;
+                event.allocatedBytes = allocatedBytes[phase];
+                event.count = switch (phase) {
+                    case PLACEMENT -> placementAttempts;
+                    case CONNECTION -> edges;
+                    default -> tilesPruned;
+                };
+                event.commit();
+            }
+            event = null;
+        }
+
+        public GenerationMetrics finish() {
+            return new GenerationMetrics(nanos.clone(), allocatedBytes.clone(), placementAttempts, placementRejections,
+                    edges, tilesCarved, tilesPruned);
+        }
+
+        private static long allocatedBytes() {
+            if (THREADS == null) return -1;
+            return THREADS.getCurrentThreadAllocatedBytes();
+        }
+
+        private static com.sun.management.ThreadMXBean threadBean() {
+            // HotSpot-specific extension; other JVMs simply report -1.
+            if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)) return null;
+            if (!bean.isThreadAllocatedMemorySupported()) return null;
+            if (!bean.isThreadAllocatedMemoryEnabled()) bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+    }
+}
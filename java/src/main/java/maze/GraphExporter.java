@@ -0,0 +1,167 @@
+package maze;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Streams the room graph of a maze to a file in one of the {@link GraphFormat}s.
+ *
+ * <p>Every format is written through one reused buffer straight into a file channel; numbers
+ * are emitted digit by digit, so the cost per room and per edge is a few buffer puts and no
+ * garbage, and maps with millions of rooms export in a single pass. Text formats are ASCII.
+ * The binary format is little-endian:
+ *
+ * <pre>
+ *   0  "MZGR", u16 version, u16 flags (0)
+ *   8  i32 room count n, i32 edge count m
+ *  16  rooms: i32 x, y, width, height each
+ *      n + 1 i32 CSR offsets into the neighbour array
+ *      2m i32 neighbours: both directions of every edge, grouped by room, in edge order
+ * </pre>
+ */
+public final class GraphExporter {
+    private static final byte[] MAGIC = {'M', 'Z', 'G', 'R'};
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private GraphExporter() {}
+
+    public static void write(List<Room> rooms, List<int[]> edges, Path path, GraphFormat format) throws IOException {
+        try (Out out = new Out(path)) {
+            switch (format) {
+                case DOT -> writeDot(rooms, edges, out);
+                case JSON -> writeJson(rooms, edges, out);
+                case CSV -> writeCsv(rooms, edges, out);
+                case BINARY -> writeBinary(rooms, edges, out);
+            }
+        }
+    }
+
+    private static void writeDot(List<Room> rooms, List<int[]> edges, Out out) throws IOException {
+        out.ascii("graph rooms {\n");
+        out.ascii("  node [shape=box, style=filled, color=gray90];\n");
+        for (int idx = 0; idx < rooms.size(); idx++) {
+            Room r = rooms.get(idx);
+            out.ascii("  r").num(idx).ascii(" [label=\"Room ").num(idx).ascii("\\n(").num(r.x).ascii(",").num(r.y)
+                    .ascii(") ").num(r.width).ascii("x").num(r.height).ascii("\"];\n");
+        }
+        for (int[] e : edges) {
+            out.ascii("  r").num(e[0]).ascii(" -- r").num(e[1]).ascii(";\n");
+        }
+        out.ascii("}\n");
+    }
+
+    private static void writeJson(List<Room> rooms, List<int[]> edges, Out out) throws IOException {
+        out.ascii("{\"rooms\":[");
+        for (int idx = 0; idx < rooms.size(); idx++) {
+            Room r = rooms.get(idx);
+            out.ascii(idx == 0 ? "\n" : ",\n");
+            out.ascii("{\"id\":").num(idx).ascii(",\"x\":").num(r.x).ascii(",\"y\":").num(r.y)
+                    .ascii(",\"width\":").num(r.width).ascii(",\"height\":").num(r.height).ascii("}");
+        }
+        out.ascii("\n],\"edges\":[");
+        for (int i = 0; i < edges.size(); i++) {
+            int[] e = edges.get(i);
+            out.ascii(i == 0 ? "\n" : ",\n");
+            out.ascii("[").num(e[0]).ascii(",").num(e[1]).ascii("]");
+        }
+        out.ascii("\n]}\n");
+    }
+
+    private static void writeCsv(List<Room> rooms, List<int[]> edges, Out out) throws IOException {
+        out.ascii("source,target,source_x,source_y,target_x,target_y,length\n");
+        for (int[] e : edges) {
+            Room a = rooms.get(e[0]);
+            Room b = rooms.get(e[1]);
+            long length = Math.abs((long) a.centerX() - b.centerX()) + Math.abs((long) a.centerY() - b.centerY());
+            out.num(e[0]).ascii(",").num(e[1]).ascii(",").num(a.centerX()).ascii(",").num(a.centerY())
+                    .ascii(",").num(b.centerX()).ascii(",").num(b.centerY()).ascii(",").num(length).ascii("\n");
+        }
+    }
+
+    private static void writeBinary(List<Room> rooms, List<int[]> edges, Out out) throws IOException {
+        int n = rooms.size();
+        int m = edges.size();
+        // Counting sort of both edge directions by room: offsets first, then the neighbours.
+        int[] offsets = new int[n + 1];
+        for (int[] e : edges) {
+            offsets[e[0] + 1]++;
+            offsets[e[1] + 1]++;
+        }
+        for (int i = 0; i < n; i++) offsets[i + 1] += offsets[i];
+        int[] neighbours = new int[2 * m];
+        int[] fill = offsets.clone();
+        for (int[] e : edges) {
+            neighbours[fill[e[0]]++] = e[1];
+            neighbours[fill[e[1]]++] = e[0];
+        }
+
+        ByteBuffer buf = out.room(16);
+        buf.put(MAGIC).putShort((short) VERSION).putShort((short) 0).putInt(n).putInt(m);
+        for (Room r : rooms) {
+            out.room(16).putInt(r.x).putInt(r.y).putInt(r.width).putInt(r.height);
+        }
+        for (int offset : offsets) out.room(4).putInt(offset);
+        for (int neighbour : neighbours) out.room(4).putInt(neighbour);
+    }
+
+    /** Buffered channel writer; text goes in as ASCII, numbers as decimal digits without formatting. */
+    private static final class Out implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final byte[] digits = new byte[20];
+
+        Out(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        ByteBuffer room(int bytes) throws IOException {
+            if (buf.remaining() < bytes) flush();
+            return buf;
+        }
+
+        Out ascii(String s) throws IOException {
+            int len = s.length();
+            if (buf.remaining() < len) flush();
+            for (int i = 0; i < len; i++) buf.put((byte) s.charAt(i));
+            return this;
+        }
+
+        Out num(long v) throws IOException {
+            if (buf.remaining() < 20) flush();
+            if (v < 0) {
+                buf.put((byte) '-');
+                v = -v;
+            }
+            int i = digits.length;
+            do {
+                digits[--i] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            buf.put(digits, i, digits.length - i);
+            return this;
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package maze;
+
+public enum GraphFormat {
+    // Graphviz DOT with one labelled box per room (the original output).
+    DOT("dot"),
+    // One object with a room array and an edge array of index pairs.
+    JSON("json"),
+    // Edge list with the rooms' centers and the Manhattan length, one edge per line.
+    CSV("csv"),
+    // Little-endian room table and CSR adjacency, see GraphExporter.
+    BINARY("binary");
+
+    private final String cliName;
+
+    GraphFormat(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String cliName() {
+        return cliName;
+    }
+
+    public static GraphFormat fromName(String name) {
+        for (GraphFormat format : values()) {
+            if (format.cliName.equals(name)) return format;
+        }
+        throw new IllegalArgumentException("Unknown graph format: " + name);
+    }
+}
@@ -1,68 +1,57 @@
 package maze;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public final class GraphUtil {
+    private static final long INDEX_MASK = (1L << 31) - 1;
+
     private GraphUtil() {}
 
     public static List<int[]> buildRoomMst(List<Room> rooms) {
-        // Greedy MST (Prim-like) over room centers to match corridor connectivity.
-        List<int[]> edges = new ArrayList<>();
-        if (rooms.size() < 2) return edges;
-
-        Set<Integer> connected = new HashSet<>();
-        connected.add(0);
-        Set<Integer> remaining = new HashSet<>();
-        for (int i = 1; i < rooms.size(); i++) remaining.add(i);
-
-        while (!remaining.isEmpty()) {
-            int bestI = -1, bestJ = -1;
-            int bestDist = Integer.MAX_VALUE;
-            for (int i : connected) {
-                for (int j : remaining) {
-                    int dist = manhattan(center(rooms.get(i)), center(rooms.get(j)));
-                    if (dist < bestDist) {
-                        bestDist = dist;
-                        bestI = i;
-                        bestJ = j;
-                    }
-                }
+        // Prim's MST over room centers grown from room 0. Each connected room keeps its nearest
+        // remaining room (from a k-d tree) in a heap keyed by distance; entries whose neighbour
+        // has since joined the tree are refreshed when popped, so a step costs O(log n).
+        // Distance ties go to the lowest (connected, remaining) index pair: the heap orders equal
+        // distances by connected index, and the tree returns the lowest remaining index.
+        int n = rooms.size();
+        List<int[]> edges = new ArrayList<>(Math.max(0, n - 1));
+        if (n < 2) return edges;
+
+        CenterKdTree remaining = new CenterKdTree(rooms);
+        int[] nearest = new int[n];
+        LongHeap heap = new LongHeap(n);
+
+        remaining.remove(0);
+        offerNearest(remaining, 0, nearest, heap);
+
+        while (edges.size() < n - 1 && !heap.isEmpty()) {
+            int i = (int) (heap.pop() & INDEX_MASK);
+            if (!remaining.contains(nearest[i])) {
+                // Stale: a refreshed distance is never shorter, so the pop order still holds.
+                offerNearest(remaining, i, nearest, heap);
+                continue;
             }
-            if (bestI == -1 || bestJ == -1) break;
-            connected.add(bestJ);
-            remaining.remove(bestJ);
-            edges.add(new int[]{bestI, bestJ});
+            int j = nearest[i];
+            edges.add(new int[]{i, j});
+            remaining.remove(j);
+            offerNearest(remaining, j, nearest, heap);
+            offerNearest(remaining, i, nearest, heap);
         }
         return edges;
     }
 
-    public static void writeGraphviz(List<Room> rooms, List<int[]> edges, String path) throws IOException {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(path))) {
-            bw.write("graph rooms {\n");
-            bw.write("  node [shape=box, style=filled, color=gray90];\n");
-            for (int idx = 0; idx < rooms.size(); idx++) {
-                Room r = rooms.get(idx);
-                String label = String.format("Room %d\\n(%d,%d) %dx%d", idx, r.x, r.y, r.width, r.height);
-                bw.write(String.format("  r%d [label=\"%s\"];\n", idx, label));
-            }
-            for (int[] e : edges) {
-                bw.write(String.format("  r%d -- r%d;\n", e[0], e[1]));
-            }
-            bw.write("}\n");
-        }
-    }
-
-    private static int[] center(Room room) {
-        return new int[]{room.centerX(), room.centerY()};
+    private static void offerNearest(CenterKdTree remaining, int i, int[] nearest, LongHeap heap) {
+        // Heap keys pack (distance, connected index); the matching nearest room lives in nearest[i].
+        int j = remaining.nearest(remaining.x(i), remaining.y(i));
+        if (j < 0) return;
+        nearest[i] = j;
+        heap.push(remaining.distance(j, remaining.x(i), remaining.y(i)) << 31 | i);
     }
 
-    private static int manhattan(int[] a, int[] b) {
-        return Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]);
+    public static void writeGraphviz(List<Room> rooms, List<int[]> edges, String path) throws IOException {
+        GraphExporter.write(rooms, edges, Path.of(path), GraphFormat.DOT);
     }
 }
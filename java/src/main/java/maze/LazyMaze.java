@@ -0,0 +1,143 @@
+package maze;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A maze of any size whose tiles are generated on demand, one cell at a time.
+ *
+ * <p>The map is split into the chunks of a {@link ChunkLayout}. A cell is built on its first
+ * query: the base pipeline runs on the cell alone with the cell's derived seed, then the cell's
+ * half of the stitch to each of its four neighbours is carved from the neighbours' rooms, which
+ * only need the placement phase. The tiles are exactly those of a chunked run with the same
+ * config and seed. Built cells and neighbour rooms are kept in LRU caches, so a query on a warm
+ * viewport is a couple of map lookups and word reads, independent of the map size; a cold cell
+ * costs one chunk generation.
+ *
+ * <p>Safe for concurrent queries. Two threads missing the same cell may both build it; the
+ * results are identical and one is kept.
+ */
+public final class LazyMaze {
+    private final ChunkLayout layout;
+    private final int width;
+    private final int height;
+    private final int cellSize;
+    private final Map<Long, ChunkLayout.Chunk> cells;
+    private final Map<Long, List<Room>> neighbourRooms;
+    private long hits;
+    private long misses;
+
+    public LazyMaze(MazeConfig config, AbstractRoomMazeGenerator base, int cellSize, int cachedCells) {
+        if (cachedCells <= 0) {
+            throw new IllegalArgumentException("Cell cache must hold at least one cell: " + cachedCells);
+        }
+        long seed = config.seed != null ? config.seed : ThreadLocalRandom.current().nextLong();
+        this.layout = new ChunkLayout(config, base, cellSize, cellSize, seed);
+        this.width = config.width;
+        this.height = config.height;
+        this.cellSize = cellSize;
+        this.cells = lru(cachedCells);
+        // Every cell needs the rooms of up to four neighbours; most are shared with other cells.
+        this.neighbourRooms = lru(4 * cachedCells);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public Tile tileAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Tile " + x + "," + y + " outside " + width + "x" + height);
+        }
+        ChunkLayout.Chunk cell = cell(x / cellSize, y / cellSize);
+        return cell.result.grid.get(x - cell.x0, y - cell.y0);
+    }
+
+    public TileGrid region(int x0, int y0, int w, int h) {
+        // Copy of a viewport clipped to the map, assembled row by row from the cells it overlaps.
+        int fromX = Math.max(x0, 0);
+        int fromY = Math.max(y0, 0);
+        int toX = (int) Math.min((long) x0 + w, width);
+        int toY = (int) Math.min((long) y0 + h, height);
+        if (fromX >= toX || fromY >= toY) {
+            throw new IllegalArgumentException("Region " + x0 + "," + y0 + " " + w + "x" + h + " lies outside the maze");
+        }
+        TileGrid out = new TileGrid(toX - fromX, toY - fromY);
+        for (int cy = fromY / cellSize; cy <= (toY - 1) / cellSize; cy++) {
+            for (int cx = fromX / cellSize; cx <= (toX - 1) / cellSize; cx++) {
+                ChunkLayout.Chunk cell = cell(cx, cy);
+                TileGrid grid = cell.result.grid;
+                int ys = Math.max(fromY, cell.y0), ye = Math.min(toY, cell.y0 + grid.height());
+                int xs = Math.max(fromX, cell.x0), xe = Math.min(toX, cell.x0 + grid.width());
+                for (int y = ys; y < ye; y++) {
+                    grid.copyTiles(y - cell.y0, xs - cell.x0, xe - xs, out, xs - fromX, y - fromY);
+                }
+            }
+        }
+        return out;
+    }
+
+    public List<Room> rooms(int cx, int cy) {
+        // Rooms of one cell, in cell-local coordinates.
+        return cell(cx, cy).result.rooms;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    private ChunkLayout.Chunk cell(int cx, int cy) {
+        long key = TileGrid.pack(cx, cy);
+        synchronized (this) {
+            ChunkLayout.Chunk cached = cells.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        // Build outside the lock so other viewports keep being served meanwhile.
+        ChunkLayout.Chunk cell = layout.generateChunk(cx, cy);
+        if (cx > 0) layout.stitchFrom(cell, cx - 1, cy, roomsOf(cx - 1, cy));
+        if (cx + 1 < layout.chunksX()) layout.stitchFrom(cell, cx + 1, cy, roomsOf(cx + 1, cy));
+        if (cy > 0) layout.stitchFrom(cell, cx, cy - 1, roomsOf(cx, cy - 1));
+        if (cy + 1 < layout.chunksY()) layout.stitchFrom(cell, cx, cy + 1, roomsOf(cx, cy + 1));
+        synchronized (this) {
+            cells.put(key, cell);
+            neighbourRooms.putIfAbsent(key, cell.result.rooms);
+        }
+        return cell;
+    }
+
+    private List<Room> roomsOf(int cx, int cy) {
+        long key = TileGrid.pack(cx, cy);
+        synchronized (this) {
+            List<Room> rooms = neighbourRooms.get(key);
+            if (rooms != null) return rooms;
+        }
+        List<Room> rooms = layout.placeChunkRooms(cx, cy);
+        synchronized (this) {
+            neighbourRooms.put(key, rooms);
+        }
+        return rooms;
+    }
+
+    private static <V> Map<Long, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
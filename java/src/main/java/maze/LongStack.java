@@ -0,0 +1,40 @@
+package maze;
+
+import java.util.Arrays;
+
+/** Growable LIFO stack of primitive longs, for work lists of packed coordinates. */
+public final class LongStack {
+    private long[] items;
+    private int size;
+
+    public LongStack(int capacity) {
+        items = new long[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void push(long value) {
+        if (size == items.length) items = Arrays.copyOf(items, size * 2);
+        items[size++] = value;
+    }
+
+    public void pushAll(LongStack other) {
+        if (size + other.size > items.length) items = Arrays.copyOf(items, Math.max(size + other.size, items.length * 2));
+        System.arraycopy(other.items, 0, items, size, other.size);
+        size += other.size;
+    }
+
+    public long pop() {
+        return items[--size];
+    }
+}
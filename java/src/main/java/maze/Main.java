@@ -1,14 +1,19 @@
 package maze;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import jdk.jfr.Recording;
 
 public final class Main {
     private static final Map<String, MazeGenerator> GENERATORS = new HashMap<>();
     static {
         GENERATORS.put("rooms_and_corridors", new RoomsAndCorridorsGenerator());
         GENERATORS.put("closest_wall", new ClosestWallConnectorGenerator());
+        GENERATORS.put("parallel", new ParallelRegionGenerator(new RoomsAndCorridorsGenerator()));
     }
 
     public static void main(String[] args) {
@@ -29,30 +34,62 @@ public final class Main {
             return;
         }
 
-        MazeResult result = generator.generate(config);
+        if (config.jfrPath != null) {
+            startRecording(config.jfrPath);
+        }
+
+        if (config.servePort >= 0) {
+            runServer(args, config);
+            return;
+        }
+
+        if (config.batchSeeds != null) {
+            runBatch(config, generator);
+            return;
+        }
+
+        if (config.chunkSize > 0) {
+            runChunked(config, generator);
+            return;
+        }
+
+        MazeCache cache = openCache(config);
+        MazeResult result;
         try {
-            MazeRenderer.renderPng(result.grid, config.outputPath);
+            if (cache != null) {
+                MazeCache.Entry entry = cache.get(generator, config);
+                Files.write(Path.of(config.outputPath), entry.png);
+                result = entry.result;
+            } else {
+                result = generator.generate(config);
+                MazeRenderer.renderPng(result.grid, config.outputPath, config.renderer);
+            }
         } catch (IOException e) {
             System.err.println("Failed to write image: " + e.getMessage());
             System.exit(1);
+            return;
         }
 
-        if (config.graphOutputPath != null) {
+        if (config.binaryOutputPath != null) {
             try {
-                var edges = GraphUtil.buildRoomMst(result.rooms);
-                GraphUtil.writeGraphviz(result.rooms, edges, config.graphOutputPath);
-                System.out.printf("Graphviz DOT written to: %s%n", config.graphOutputPath);
+                MazeFile.write(result, config, Path.of(config.binaryOutputPath), config.binaryCompression);
+                System.out.printf("Binary maze written to: %s%n", config.binaryOutputPath);
             } catch (IOException e) {
-                System.err.println("Failed to write graph DOT: " + e.getMessage());
+                System.err.println("Failed to write binary maze: " + e.getMessage());
             }
         }
 
-        int filled = 0;
-        for (Tile[] row : result.grid) {
-            for (Tile t : row) {
-                if (t != Tile.EMPTY) filled++;
+        if (config.graphOutputPath != null) {
+            try {
+                // The corridors the generator actually carved, also when read back from the disk cache.
+                GraphExporter.write(result.rooms, result.edges, Path.of(config.graphOutputPath), config.graphFormat);
+                System.out.printf("Room graph (%s) written to: %s%n", config.graphFormat.cliName(), config.graphOutputPath);
+            } catch (IOException e) {
+                System.err.println("Failed to write room graph: " + e.getMessage());
             }
         }
+
+        long filled = result.grid.countFilled();
         double coverage = (double) filled / config.area();
         System.out.printf(
                 "Generated %d rooms with '%s'. Coverage: %.1f%% (%d/%d tiles). Output: %s%n",
@@ -62,5 +99,175 @@ public final class Main {
                 filled,
                 config.area(),
                 config.outputPath);
+        double reached = result.targetFilled == 0 ? 100.0 : 100.0 * result.placedFilled / result.targetFilled;
+        System.out.printf(
+                "Placement '%s': rooms cover %d of %d target tiles (%.1f%% of target).%n",
+                config.placement.cliName(),
+                result.placedFilled,
+                result.targetFilled,
+                reached);
+        // Results served from the cache were not generated in this run and have no phase timings.
+        if (result.metrics != GenerationMetrics.NONE) {
+            System.out.println(result.metrics.summary());
+        }
+        if (config.connectivity != ConnectivityMode.OFF) {
+            // Results read back from the disk cache carry no report; label them now.
+            Connectivity connectivity = result.connectivity != null ? result.connectivity
+                    : Connectivity.analyze(result.grid, result.rooms, 1);
+            System.out.println(connectivity.summary());
+        }
+        if (cache != null) {
+            System.out.println(cache.summary());
+        }
+        if (config.metricsJsonPath != null) {
+            writeMetricsJson(config.metricsJsonPath, String.format(Locale.ROOT,
+                    "{\"algorithm\":\"%s\",\"seed\":%s,\"width\":%d,\"height\":%d,\"rooms\":%d,\"filled\":%d,\"metrics\":%s}%n",
+                    config.algorithm, config.seed, config.width, config.height, result.rooms.size(), filled,
+                    result.metrics.toJson()));
+        }
+    }
+
+    private static MazeCache openCache(MazeConfig config) {
+        // Optional: a failing disk tier only costs the speed-up, so carry on without it.
+        try {
+            return MazeCache.forConfig(config);
+        } catch (IOException e) {
+            System.err.println("Failed to open cache directory: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void startRecording(String path) {
+        // Phase events only; the file is written when the JVM exits, including via System.exit.
+        try {
+            Recording recording = new Recording();
+            recording.enable(PhaseEvent.NAME);
+            recording.setDestination(Path.of(path));
+            recording.setDumpOnExit(true);
+            recording.start();
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Failed to start JFR recording: " + e.getMessage());
+        }
+    }
+
+    private static void writeMetricsJson(String path, String json) {
+        try {
+            Files.writeString(Path.of(path), json);
+            System.out.printf("Metrics JSON written to: %s%n", path);
+        } catch (IOException e) {
+            System.err.println("Failed to write metrics JSON: " + e.getMessage());
+        }
+    }
+
+    private static void runServer(String[] args, MazeConfig config) {
+        // Runs until the process is stopped; the command-line options are each request's defaults.
+        try {
+            MazeServer server = new MazeServer(args, GENERATORS, openCache(config), config.servePort);
+            server.warmUp(3);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            System.out.printf("Serving mazes on http://127.0.0.1:%d/maze (stats: /stats)%n", server.port());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to start server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void runBatch(MazeConfig config, MazeGenerator generator) {
+        // One JVM for the whole seed range, so start-up and JIT warm-up are paid once.
+        if (config.chunkSize > 0) {
+            System.err.println("Chunked generation is not available in batch mode.");
+            System.exit(1);
+            return;
+        }
+        if (config.graphOutputPath != null) {
+            System.err.println("Graph output is not available in batch mode; ignoring --graph-output.");
+        }
+        if (config.binaryOutputPath != null) {
+            System.err.println("Binary output is not available in batch mode; ignoring --binary-output.");
+        }
+        int inFlight = config.resolvedThreads();
+        MazeCache cache = openCache(config);
+        BatchRunner.Summary summary;
+        try {
+            summary = new BatchRunner(generator, inFlight, cache).run(config);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Batch interrupted.");
+            System.exit(1);
+            return;
+        }
+        System.out.printf(
+                "Generated %d mazes with '%s' for seeds %s (%d failed) in %.2f s: %.1f mazes/s, %.0f tiles/s.%n",
+                summary.mazes,
+                config.algorithm,
+                config.batchSeeds,
+                summary.failed,
+                summary.seconds(),
+                summary.mazesPerSecond(),
+                summary.tilesPerSecond());
+        if (summary.metrics != GenerationMetrics.NONE) {
+            System.out.println(summary.metrics.summary());
+        }
+        if (cache != null) {
+            System.out.println(cache.summary());
+        }
+        if (config.metricsJsonPath != null) {
+            writeMetricsJson(config.metricsJsonPath, String.format(Locale.ROOT,
+                    "{\"algorithm\":\"%s\",\"seeds\":\"%s\",\"width\":%d,\"height\":%d,\"mazes\":%d,\"failed\":%d,"
+                            + "\"nanos\":%d,\"mazesPerSecond\":%.3f,\"tilesPerSecond\":%.1f,\"metrics\":%s}%n",
+                    config.algorithm, config.batchSeeds, config.width, config.height, summary.mazes, summary.failed,
+                    summary.nanos, summary.mazesPerSecond(), summary.tilesPerSecond(), summary.metrics.toJson()));
+        }
+        if (summary.failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void runChunked(MazeConfig config, MazeGenerator generator) {
+        // Chunked maps never exist as one grid, so rows go straight to a streaming PNG.
+        if (!(generator instanceof AbstractRoomMazeGenerator base)) {
+            System.err.println("Algorithm does not support chunked generation: " + config.algorithm);
+            System.exit(1);
+            return;
+        }
+        if (config.graphOutputPath != null) {
+            System.err.println("Graph output is not available in chunked mode; ignoring --graph-output.");
+        }
+        if (config.metricsJsonPath != null) {
+            System.err.println("Phase metrics are not available in chunked mode; ignoring --metrics-json.");
+        }
+        if (config.binaryOutputPath != null) {
+            System.err.println("Binary output is not available in chunked mode; ignoring --binary-output.");
+        }
+        if (config.cacheMegabytes > 0 || config.cacheDir != null) {
+            System.err.println("The result cache is not available in chunked mode; ignoring --cache-mb and --cache-dir.");
+        }
+        if (config.connectivity != ConnectivityMode.OFF) {
+            System.err.println("Connectivity checks are not available in chunked mode; ignoring --connectivity.");
+        }
+        ChunkedMazeGenerator.Summary summary;
+        try (PngRowWriter out = MazeRenderer.openRowWriter(config.outputPath, config.width, config.height)) {
+            summary = new ChunkedMazeGenerator(base).generate(config, out);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to generate chunked maze: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        double coverage = (double) summary.filled / config.area();
+        System.out.printf(
+                "Generated %d rooms in %d chunks (%d stitches) with '%s'. Coverage: %.1f%% (%d/%d tiles). Output: %s%n",
+                summary.rooms,
+                summary.chunks,
+                summary.stitches,
+                config.algorithm,
+                coverage * 100.0,
+                summary.filled,
+                config.area(),
+                config.outputPath);
     }
 }
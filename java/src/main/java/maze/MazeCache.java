@@ -0,0 +1,209 @@
+package maze;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed cache of generated mazes and their encoded PNGs.
+ *
+ * <p>Entries are keyed by the SHA-256 of {@link MazeConfig#cacheKey()}, so two requests with
+ * the same settings and seed share one entry whatever their output paths. The memory tier
+ * holds results and PNG bytes up to a byte budget and evicts the least recently used entry
+ * first. The optional disk tier keeps {@code <key>.png} and {@code <key>.maze} (a
+ * {@link MazeFile} with the tiles, rooms and spanning-tree edges) in a directory, so later runs
+ * skip generation too; results loaded from disk have no phase metrics. A disk entry that
+ * cannot be read back (truncated, corrupt or in an older file format) counts as a miss: its
+ * files are deleted and the maze is generated again. Unseeded configs bypass the cache.
+ * Concurrent misses on the same key may both generate; the outputs are identical.
+ *
+ * <p>Every call returns its own copy of the grid, room and edge lists and PNG bytes, so callers
+ * may edit a result in place (e.g. with {@link RegionRegenerator}) without changing what later
+ * hits see.
+ */
+public final class MazeCache {
+    private final long maxBytes;
+    private final Path dir;
+    private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+
+    public MazeCache(long maxBytes, Path dir) throws IOException {
+        this.maxBytes = maxBytes;
+        this.dir = dir == null ? null : Files.createDirectories(dir);
+    }
+
+    public static MazeCache forConfig(MazeConfig config) throws IOException {
+        // The cache configured on the command line, or null when neither tier is enabled.
+        if (config.cacheMegabytes <= 0 && config.cacheDir == null) return null;
+        return new MazeCache(Math.max(0, config.cacheMegabytes) * (1L << 20), config.cacheDir == null ? null : Path.of(config.cacheDir));
+    }
+
+    public Entry get(MazeGenerator generator, MazeConfig config) throws IOException {
+        // Memory, then disk, then generate and render; whatever was found is kept in the tiers above it.
+        String canonical = config.cacheKey();
+        if (canonical == null) {
+            synchronized (this) {
+                misses++;
+            }
+            return render(generator, config);
+        }
+        String key = hash(canonical);
+        synchronized (this) {
+            Entry cached = memory.get(key);
+            if (cached != null) {
+                memoryHits++;
+                return cached.copy();
+            }
+        }
+        Entry entry = dir != null ? load(key) : null;
+        synchronized (this) {
+            if (entry != null) {
+                diskHits++;
+            } else {
+                misses++;
+            }
+        }
+        if (entry == null) {
+            entry = render(generator, config);
+            if (dir != null) store(key, entry, config);
+        }
+        return keep(key, entry) ? entry.copy() : entry;
+    }
+
+    public synchronized long memoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long diskHits() {
+        return diskHits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized String summary() {
+        return String.format("Cache: %d memory hits, %d disk hits, %d misses, %d evictions, %d entries (%.1f MB).",
+                memoryHits, diskHits, misses, evictions, memory.size(), bytes / (double) (1L << 20));
+    }
+
+    private static Entry render(MazeGenerator generator, MazeConfig config) throws IOException {
+        MazeResult result = generator.generate(config);
+        return new Entry(result, MazeRenderer.encodePng(result.grid, config.renderer));
+    }
+
+    private synchronized boolean keep(String key, Entry entry) {
+        // Entries larger than the whole budget are never kept; otherwise evict from the cold end.
+        // Returns whether the entry is now held in memory.
+        long size = entry.bytes();
+        if (size > maxBytes) return false;
+        Entry previous = memory.put(key, entry);
+        if (previous != null) bytes -= previous.bytes();
+        bytes += size;
+        var it = memory.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            bytes -= eldest.bytes();
+            evictions++;
+        }
+        return true;
+    }
+
+    private Entry load(String key) throws IOException {
+        Path png = dir.resolve(key + ".png");
+        Path maze = dir.resolve(key + ".maze");
+        if (!Files.exists(png) || !Files.exists(maze)) return null;
+        try (MazeFile file = MazeFile.open(maze)) {
+            // Files written before edges were stored cannot give back the carved graph; regenerate.
+            if (file.roomCount > 1 && file.edgeCount == 0) return null;
+            MazeResult result = new MazeResult(file.readGrid(), file.rooms(), file.edges(), file.targetFilled, file.placedFilled,
+                    GenerationMetrics.NONE);
+            return new Entry(result, Files.readAllBytes(png));
+        } catch (IOException | RuntimeException e) {
+            // Bad headers and short files fail to open; corrupt or short tile blocks fail while
+            // reading the grid. Either way the entry is dropped and regenerated.
+            Files.deleteIfExists(maze);
+            Files.deleteIfExists(png);
+            return null;
+        }
+    }
+
+    private void store(String key, Entry entry, MazeConfig config) throws IOException {
+        // Write both files under temporary names and move them into place, PNG last, so a reader
+        // never sees a half-written entry.
+        Path maze = Files.createTempFile(dir, key, ".tmp");
+        Path png = Files.createTempFile(dir, key, ".tmp");
+        try {
+            MazeFile.write(entry.result, config, maze, TileCompression.DEFLATE);
+            Files.write(png, entry.png);
+            move(maze, dir.resolve(key + ".maze"));
+            move(png, dir.resolve(key + ".png"));
+        } finally {
+            Files.deleteIfExists(maze);
+            Files.deleteIfExists(png);
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String hash(String canonical) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** A cached maze: the generated result and its PNG encoded with the config's renderer. */
+    public static final class Entry {
+        public final MazeResult result;
+        public final byte[] png;
+
+        Entry(MazeResult result, byte[] png) {
+            this.result = result;
+            this.png = png;
+        }
+
+        Entry copy() {
+            // Rooms are immutable; the grid, edge pairs and PNG bytes are not.
+            TileGrid grid = result.grid;
+            List<int[]> edges = new ArrayList<>(result.edges.size());
+            for (int[] e : result.edges) edges.add(e.clone());
+            MazeResult copy = new MazeResult(grid.region(0, 0, grid.width(), grid.height()), new ArrayList<>(result.rooms), edges,
+                    result.targetFilled, result.placedFilled, result.metrics, result.connectivity);
+            return new Entry(copy, png.clone());
+        }
+
+        long bytes() {
+            // Grid words, room and edge tables and PNG; object headers are ignored.
+            TileGrid grid = result.grid;
+            return (long) grid.wordsPerRow() * grid.height() * 8 + result.rooms.size() * 32L + result.edges.size() * 8L + png.length;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package maze;
 
+import java.util.Locale;
 import java.util.Objects;
 
 public final class MazeConfig {
@@ -15,6 +16,23 @@ public final class MazeConfig {
     public final String outputPath;
     public final String graphOutputPath;
     public final Long seed;
+    public final PlacementMode placement;
+    public final RenderMode renderer;
+    public final int chunkSize; // 0 disables chunked generation
+    public final int threads; // worker threads for the parallel algorithm, 0 = all cores
+    public final SeedRange batchSeeds; // null outside batch mode
+    public final String outputPattern; // batch output path, formatted with the seed
+    public final String metricsJsonPath; // optional per-phase metrics as JSON
+    public final String jfrPath; // optional JFR recording of the phase events
+    public final String binaryOutputPath; // optional native binary maze file
+    public final TileCompression binaryCompression;
+    public final String cacheDir; // optional on-disk tier of the result cache
+    public final int cacheMegabytes; // in-memory tier of the result cache, 0 disables caching
+    public final RouterMode router;
+    public final GraphFormat graphFormat;
+    public final ConnectivityMode connectivity; // optional reachability check after generation
+    public final int servePort; // HTTP server port on loopback, -1 outside server mode, 0 = any free port
+    public final RngMode rng;
 
     public MazeConfig(
             int width,
@@ -29,53 +47,156 @@ public final class MazeConfig {
             String outputPath,
             String graphOutputPath,
             Long seed) {
-        this.width = width;
-        this.height = height;
-        this.minRoomWidth = minRoomWidth;
-        this.minRoomHeight = minRoomHeight;
-        this.maxRoomWidth = maxRoomWidth;
-        this.maxRoomHeight = maxRoomHeight;
-        this.coverage = coverage;
-        this.hallwayWidth = hallwayWidth;
-        this.algorithm = Objects.requireNonNull(algorithm, "algorithm");
-        this.outputPath = Objects.requireNonNull(outputPath, "outputPath");
-        this.graphOutputPath = graphOutputPath;
-        this.seed = seed;
+        this(builder().width(width).height(height).minRoomWidth(minRoomWidth).minRoomHeight(minRoomHeight)
+                .maxRoomWidth(maxRoomWidth).maxRoomHeight(maxRoomHeight).coverage(coverage).hallwayWidth(hallwayWidth)
+                .algorithm(algorithm).outputPath(outputPath).graphOutputPath(graphOutputPath).seed(seed));
     }
 
-    public int area() {
-        return width * height;
+    private MazeConfig(Builder b) {
+        this.width = b.width;
+        this.height = b.height;
+        this.minRoomWidth = b.minRoomWidth;
+        this.minRoomHeight = b.minRoomHeight;
+        this.maxRoomWidth = b.maxRoomWidth;
+        this.maxRoomHeight = b.maxRoomHeight;
+        this.coverage = b.coverage;
+        this.hallwayWidth = b.hallwayWidth;
+        this.algorithm = Objects.requireNonNull(b.algorithm, "algorithm");
+        this.outputPath = Objects.requireNonNull(b.outputPath, "outputPath");
+        this.graphOutputPath = b.graphOutputPath;
+        this.seed = b.seed;
+        this.placement = Objects.requireNonNull(b.placement, "placement");
+        this.renderer = Objects.requireNonNull(b.renderer, "renderer");
+        this.chunkSize = b.chunkSize;
+        this.threads = b.threads;
+        this.batchSeeds = b.batchSeeds;
+        this.outputPattern = b.outputPattern;
+        this.metricsJsonPath = b.metricsJsonPath;
+        this.jfrPath = b.jfrPath;
+        this.binaryOutputPath = b.binaryOutputPath;
+        this.binaryCompression = Objects.requireNonNull(b.binaryCompression, "binaryCompression");
+        this.cacheDir = b.cacheDir;
+        this.cacheMegabytes = b.cacheMegabytes;
+        this.router = Objects.requireNonNull(b.router, "router");
+        this.graphFormat = Objects.requireNonNull(b.graphFormat, "graphFormat");
+        this.connectivity = Objects.requireNonNull(b.connectivity, "connectivity");
+        this.servePort = b.servePort;
+        this.rng = Objects.requireNonNull(b.rng, "rng");
     }
 
-    public static MazeConfig fromArgs(String[] args) {
-        int width = 1000;
-        int height = 1000;
-        int minRoomW = 2;
-        int minRoomH = 2;
-        int maxRoomW = 200;
-        int maxRoomH = 200;
-        double coverage = 0.5;
-        int hallwayWidth = 1;
-        String algorithm = "rooms_and_corridors";
-        String output = "maze.png";
-        String graphOutput = null;
-        Long seed = null;
+    public static Builder builder() {
+        // The command-line defaults.
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        // Every setting of this config, to copy with a few changed.
+        Builder b = new Builder();
+        b.width = width;
+        b.height = height;
+        b.minRoomWidth = minRoomWidth;
+        b.minRoomHeight = minRoomHeight;
+        b.maxRoomWidth = maxRoomWidth;
+        b.maxRoomHeight = maxRoomHeight;
+        b.coverage = coverage;
+        b.hallwayWidth = hallwayWidth;
+        b.algorithm = algorithm;
+        b.outputPath = outputPath;
+        b.graphOutputPath = graphOutputPath;
+        b.seed = seed;
+        b.placement = placement;
+        b.renderer = renderer;
+        b.chunkSize = chunkSize;
+        b.threads = threads;
+        b.batchSeeds = batchSeeds;
+        b.outputPattern = outputPattern;
+        b.metricsJsonPath = metricsJsonPath;
+        b.jfrPath = jfrPath;
+        b.binaryOutputPath = binaryOutputPath;
+        b.binaryCompression = binaryCompression;
+        b.cacheDir = cacheDir;
+        b.cacheMegabytes = cacheMegabytes;
+        b.router = router;
+        b.graphFormat = graphFormat;
+        b.connectivity = connectivity;
+        b.servePort = servePort;
+        b.rng = rng;
+        return b;
+    }
+
+    public long area() {
+        return (long) width * height;
+    }
+
+    public MazeConfig forSeed(long seed, String outputPath) {
+        // One maze of a batch: same settings, a fixed seed and its own output file.
+        return part().outputPath(outputPath).seed(seed).build();
+    }
+
+    public MazeConfig resized(int width, int height, Long seed) {
+        // The same room and hallway settings over a smaller area, e.g. one chunk or an edited region.
+        // Parts of a larger map are never checked on their own.
+        return part().width(width).height(height).seed(seed).chunkSize(0).threads(1)
+                .binaryCompression(TileCompression.NONE).connectivity(ConnectivityMode.OFF).build();
+    }
+
+    private Builder part() {
+        // One maze within a larger run: no graph, metrics, recording or binary output of its own,
+        // and no batch, cache or server settings.
+        return toBuilder().graphOutputPath(null).batchSeeds(null).outputPattern(null).metricsJsonPath(null).jfrPath(null)
+                .binaryOutputPath(null).cacheDir(null).cacheMegabytes(0).servePort(-1);
+    }
+
+    public int resolvedThreads() {
+        // 0 asks for one thread per available processor.
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
 
+    public String cacheKey() {
+        // Every setting that shapes the tiles or the PNG bytes, in a fixed order. Unseeded
+        // configs have no key: their output is not reproducible, so there is nothing to reuse.
+        // The thread count is left out: no algorithm's output depends on it.
+        if (seed == null) return null;
+        return String.format(Locale.ROOT, "v2|%s|%d|%d|%d|%d|%d|%d|%s|%d|%d|%s|%s|%d|%s|%s|%s",
+                algorithm, width, height, minRoomWidth, minRoomHeight, maxRoomWidth, maxRoomHeight,
+                Double.toHexString(coverage), hallwayWidth, seed, placement.cliName(), renderer.cliName(), chunkSize,
+                router.cliName(), connectivity.cliName(), rng.cliName());
+    }
+
+    public static MazeConfig fromArgs(String[] args) {
+        Builder b = builder();
         for (int i = 0; i < args.length; i++) {
             String arg = args[i];
             switch (arg) {
-                case "--width" -> width = Integer.parseInt(requireNext(args, ++i, arg));
-                case "--height" -> height = Integer.parseInt(requireNext(args, ++i, arg));
-                case "--min-room-width" -> minRoomW = Integer.parseInt(requireNext(args, ++i, arg));
-                case "--min-room-height" -> minRoomH = Integer.parseInt(requireNext(args, ++i, arg));
-                case "--max-room-width" -> maxRoomW = Integer.parseInt(requireNext(args, ++i, arg));
-                case "--max-room-height" -> maxRoomH = Integer.parseInt(requireNext(args, ++i, arg));
-                case "--coverage" -> coverage = parseCoverage(requireNext(args, ++i, arg));
-                case "--hallway-width" -> hallwayWidth = Integer.parseInt(requireNext(args, ++i, arg));
-                case "--algorithm" -> algorithm = requireNext(args, ++i, arg);
-                case "--output" -> output = requireNext(args, ++i, arg);
-                case "--graph-output" -> graphOutput = requireNext(args, ++i, arg);
-                case "--seed" -> seed = Long.parseLong(requireNext(args, ++i, arg));
+                case "--width" -> b.width(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--height" -> b.height(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--min-room-width" -> b.minRoomWidth(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--min-room-height" -> b.minRoomHeight(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--max-room-width" -> b.maxRoomWidth(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--max-room-height" -> b.maxRoomHeight(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--coverage" -> b.coverage(parseCoverage(requireNext(args, ++i, arg)));
+                case "--hallway-width" -> b.hallwayWidth(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--algorithm" -> b.algorithm(requireNext(args, ++i, arg));
+                case "--output" -> b.outputPath(requireNext(args, ++i, arg));
+                case "--graph-output" -> b.graphOutputPath(requireNext(args, ++i, arg));
+                case "--graph-format" -> b.graphFormat(GraphFormat.fromName(requireNext(args, ++i, arg)));
+                case "--seed" -> b.seed(Long.parseLong(requireNext(args, ++i, arg)));
+                case "--placement" -> b.placement(PlacementMode.fromName(requireNext(args, ++i, arg)));
+                case "--renderer" -> b.renderer(RenderMode.fromName(requireNext(args, ++i, arg)));
+                case "--chunk-size" -> b.chunkSize(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--threads" -> b.threads(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--batch-seeds" -> b.batchSeeds(SeedRange.parse(requireNext(args, ++i, arg)));
+                case "--output-pattern" -> b.outputPattern(requireNext(args, ++i, arg));
+                case "--metrics-json" -> b.metricsJsonPath(requireNext(args, ++i, arg));
+                case "--jfr" -> b.jfrPath(requireNext(args, ++i, arg));
+                case "--binary-output" -> b.binaryOutputPath(requireNext(args, ++i, arg));
+                case "--binary-compression" -> b.binaryCompression(TileCompression.fromName(requireNext(args, ++i, arg)));
+                case "--cache-dir" -> b.cacheDir(requireNext(args, ++i, arg));
+                case "--cache-mb" -> b.cacheMegabytes(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--router" -> b.router(RouterMode.fromName(requireNext(args, ++i, arg)));
+                case "--connectivity" -> b.connectivity(ConnectivityMode.fromName(requireNext(args, ++i, arg)));
+                case "--serve" -> b.servePort(Integer.parseInt(requireNext(args, ++i, arg)));
+                case "--rng" -> b.rng(RngMode.fromName(requireNext(args, ++i, arg)));
                 case "--help", "-h" -> {
                     printHelp();
                     System.exit(0);
@@ -84,19 +205,7 @@ public final class MazeConfig {
             }
         }
 
-        return new MazeConfig(
-                width,
-                height,
-                minRoomW,
-                minRoomH,
-                maxRoomW,
-                maxRoomH,
-                coverage,
-                hallwayWidth,
-                algorithm,
-                output,
-                graphOutput,
-                seed);
+        return b.build();
     }
 
     private static String requireNext(String[] args, int idx, String current) {
@@ -129,8 +238,234 @@ public final class MazeConfig {
                 "  --hallway-width <int>    Hallway width in tiles (default 1)\n" +
                 "  --algorithm <name>       Algorithm (default rooms_and_corridors)\n" +
                 "  --output <path>          Output PNG path (default maze.png)\n" +
-                "  --graph-output <path>    Optional Graphviz DOT path for room connections\n" +
+                "  --graph-output <path>    Optional room graph path: rooms and their corridor connections\n" +
+                "  --graph-format <fmt>     Room graph format: dot, json, csv or binary (default dot)\n" +
                 "  --seed <long>            Optional RNG seed\n" +
+                "  --placement <mode>       Room placement: random or free_space (default random)\n" +
+                "  --router <mode>          Corridor routing: lshape or astar (default lshape)\n" +
+                "  --rng <mode>             Randomness: legacy (sequential java.util.Random, reproduces\n" +
+                "                           existing seeds) or counter (keyed, order-independent draws)\n" +
+                "  --connectivity <mode>    Check room reachability after generation: off, report or repair\n" +
+                "                           (default off)\n" +
+                "  --renderer <mode>        PNG writer: imageio, indexed or streaming (default imageio)\n" +
+                "  --chunk-size <int>       Generate in chunks of this many tiles per side (multiple of 32),\n" +
+                "                           streaming rows to the PNG; 0 disables (default 0)\n" +
+                "  --threads <int>          Worker threads for the parallel algorithm, or mazes in flight\n" +
+                "                           in batch mode (default: all cores)\n" +
+                "  --batch-seeds <a..b>     Generate one maze per seed in the range in a single run\n" +
+                "  --output-pattern <fmt>   Batch output path, formatted with the seed (default maze-%d.png)\n" +
+                "  --metrics-json <path>    Write per-phase time, allocation and work counters as JSON\n" +
+                "  --jfr <path>             Record per-phase JFR events to this file\n" +
+                "  --binary-output <path>   Also write the tiles, rooms and settings as a binary maze file\n" +
+                "  --binary-compression <m> Tile plane compression: none or deflate (default none)\n" +
+                "  --cache-mb <int>         In-memory cache of results and PNGs for seeded runs, in MB (default 0)\n" +
+                "  --cache-dir <path>       On-disk cache of results and PNGs for seeded runs\n" +
+                "  --serve <port>           Serve mazes over HTTP on 127.0.0.1 (0 picks a free port); the\n" +
+                "                           other options become defaults for GET /maze, see GET /stats\n" +
                 "  --help                   Show this help");
     }
+
+    /** Settings for a {@link MazeConfig}, starting from the command-line defaults. */
+    public static final class Builder {
+        private int width = 1000;
+        private int height = 1000;
+        private int minRoomWidth = 2;
+        private int minRoomHeight = 2;
+        private int maxRoomWidth = 200;
+        private int maxRoomHeight = 200;
+        private double coverage = 0.5;
+        private int hallwayWidth = 1;
+        private String algorithm = "rooms_and_corridors";
+        private String outputPath = "maze.png";
+        private String graphOutputPath;
+        private Long seed;
+        private PlacementMode placement = PlacementMode.RANDOM;
+        private RenderMode renderer = RenderMode.IMAGEIO;
+        private int chunkSize;
+        private int threads;
+        private SeedRange batchSeeds;
+        private String outputPattern = "maze-%d.png";
+        private String metricsJsonPath;
+        private String jfrPath;
+        private String binaryOutputPath;
+        private TileCompression binaryCompression = TileCompression.NONE;
+        private String cacheDir;
+        private int cacheMegabytes;
+        private RouterMode router = RouterMode.LSHAPE;
+        private GraphFormat graphFormat = GraphFormat.DOT;
+        private ConnectivityMode connectivity = ConnectivityMode.OFF;
+        private int servePort = -1;
+        private RngMode rng = RngMode.LEGACY;
+
+        private Builder() {
+        }
+
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder height(int height) {
+            this.height = height;
+            return this;
+        }
+
+        public Builder minRoomWidth(int minRoomWidth) {
+            this.minRoomWidth = minRoomWidth;
+            return this;
+        }
+
+        public Builder minRoomHeight(int minRoomHeight) {
+            this.minRoomHeight = minRoomHeight;
+            return this;
+        }
+
+        public Builder maxRoomWidth(int maxRoomWidth) {
+            this.maxRoomWidth = maxRoomWidth;
+            return this;
+        }
+
+        public Builder maxRoomHeight(int maxRoomHeight) {
+            this.maxRoomHeight = maxRoomHeight;
+            return this;
+        }
+
+        public Builder coverage(double coverage) {
+            this.coverage = coverage;
+            return this;
+        }
+
+        public Builder hallwayWidth(int hallwayWidth) {
+            this.hallwayWidth = hallwayWidth;
+            return this;
+        }
+
+        public Builder algorithm(String algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        public Builder outputPath(String outputPath) {
+            this.outputPath = outputPath;
+            return this;
+        }
+
+        public Builder graphOutputPath(String graphOutputPath) {
+            this.graphOutputPath = graphOutputPath;
+            return this;
+        }
+
+        public Builder seed(Long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder placement(PlacementMode placement) {
+            this.placement = placement;
+            return this;
+        }
+
+        public Builder renderer(RenderMode renderer) {
+            this.renderer = renderer;
+            return this;
+        }
+
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder batchSeeds(SeedRange batchSeeds) {
+            this.batchSeeds = batchSeeds;
+            return this;
+        }
+
+        public Builder outputPattern(String outputPattern) {
+            this.outputPattern = outputPattern;
+            return this;
+        }
+
+        public Builder metricsJsonPath(String metricsJsonPath) {
+            this.metricsJsonPath = metricsJsonPath;
+            return this;
+        }
+
+        public Builder jfrPath(String jfrPath) {
+            this.jfrPath = jfrPath;
+            return this;
+        }
+
+        public Builder binaryOutputPath(String binaryOutputPath) {
+            this.binaryOutputPath = binaryOutputPath;
+            return this;
+        }
+
+        public Builder binaryCompression(TileCompression binaryCompression) {
+            this.binaryCompression = binaryCompression;
+            return this;
+        }
+
+        public Builder cacheDir(String cacheDir) {
+            this.cacheDir = cacheDir;
+            return this;
+        }
+
+        public Builder cacheMegabytes(int cacheMegabytes) {
+            this.cacheMegabytes = cacheMegabytes;
+            return this;
+        }
+
+        public Builder router(RouterMode router) {
+            this.router = router;
+            return this;
+        }
+
+        public Builder graphFormat(GraphFormat graphFormat) {
+            this.graphFormat = graphFormat;
+            return this;
+        }
+
+        public Builder connectivity(ConnectivityMode connectivity) {
+            this.connectivity = connectivity;
+            return this;
+        }
+
+        public Builder servePort(int servePort) {
+            this.servePort = servePort;
+            return this;
+        }
+
+        public Builder rng(RngMode rng) {
+            this.rng = rng;
+            return this;
+        }
+
+        public MazeConfig build() {
+            // Sizes no generator can work with are refused here, before anything is allocated.
+            requirePositive("--width", width);
+            requirePositive("--height", height);
+            requirePositive("--min-room-width", minRoomWidth);
+            requirePositive("--min-room-height", minRoomHeight);
+            requirePositive("--hallway-width", hallwayWidth);
+            if (maxRoomWidth < minRoomWidth) {
+                throw new IllegalArgumentException("--max-room-width " + maxRoomWidth + " is below --min-room-width " + minRoomWidth);
+            }
+            if (maxRoomHeight < minRoomHeight) {
+                throw new IllegalArgumentException("--max-room-height " + maxRoomHeight + " is below --min-room-height " + minRoomHeight);
+            }
+            if (threads < 0) {
+                throw new IllegalArgumentException("--threads must not be negative: " + threads);
+            }
+            return new MazeConfig(this);
+        }
+
+        private static void requirePositive(String option, int value) {
+            if (value <= 0) throw new IllegalArgumentException(option + " must be positive: " + value);
+        }
+    }
 }
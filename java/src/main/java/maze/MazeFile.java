@@ -0,0 +1,394 @@
+package maze;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Native binary maze file: a header with the dimensions, seed and generation settings, a room
+ * table, the spanning-tree edges between rooms, and the tile plane as the {@link TileGrid} words
+ * themselves, stored in row blocks that are either raw or deflated one block at a time.
+ *
+ * <p>Opening a file only reads the header and block table; tiles and rooms are read through
+ * memory-mapped windows on demand, so a lookup touches one page of a raw plane (or inflates one
+ * block of a deflated one) however large the map is. All values are little-endian.
+ *
+ * <pre>
+ *   0  "MAZE", u16 version, u8 compression, u8 flags (bit 0: seed present, bit 1: edges present)
+ *   8  i32 width, i32 height, i32 words per row, i32 rows per block
+ *  24  i64 seed, i64 target filled, i64 placed filled
+ *  48  i32 min/max room width/height, f64 coverage, i32 hallway width, i32 room count
+ *  80  i64 room table and plane offsets
+ *  96  u16-prefixed UTF-8 algorithm, placement, router and rng names, padded to 8 bytes
+ *      rooms: i32 x, y, width, height each
+ *      edges (if present): i64 count, then i32 room a, room b each
+ *      plane: per block, rows x words per row i64 grid words (raw or deflated)
+ *      blocks + 1 i64 plane-relative block offsets, ending the file
+ * </pre>
+ *
+ * <p>Every offset in the header is known before the plane is written, so a file is written in
+ * one pass and can go straight to a stream. Version 2 added the router and rng names and
+ * version 3 moved the block table to the end; older files are rejected.
+ *
+ * <p>Readers are safe for concurrent lookups on raw planes; deflated planes serialise lookups
+ * on the single cached block.
+ */
+public final class MazeFile implements Closeable {
+    private static final byte[] MAGIC = {'M', 'A', 'Z', 'E'};
+    private static final int VERSION = 3;
+    private static final int FIXED_HEADER = 96;
+    private static final int ROOM_BYTES = 16;
+    private static final int EDGE_BYTES = 8;
+    private static final int BLOCK_BYTES = 1 << 20;
+    private static final long WINDOW_BYTES = 1L << 30;
+    private static final Tile[] TILES = Tile.values();
+
+    public final int width;
+    public final int height;
+    public final Long seed;
+    public final TileCompression compression;
+    public final long targetFilled;
+    public final long placedFilled;
+    public final int minRoomWidth;
+    public final int minRoomHeight;
+    public final int maxRoomWidth;
+    public final int maxRoomHeight;
+    public final double coverage;
+    public final int hallwayWidth;
+    public final String algorithm;
+    public final PlacementMode placement;
+    public final RouterMode router;
+    public final RngMode rng;
+    public final int roomCount;
+    public final int edgeCount; // 0 when the file has no edge table
+
+    private final FileChannel channel;
+    private final int wordsPerRow;
+    private final int rowsPerBlock;
+    private final long planeOffset;
+    private final long[] blockOffsets;
+    private final Windows roomTable;
+    private final Windows edgeTable;
+    private final Windows rawPlane;
+    private int cachedBlock = -1;
+    private long[] cachedWords;
+
+    private MazeFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer fixed = read(channel, 0, FIXED_HEADER);
+        for (byte b : MAGIC) {
+            if (fixed.get() != b) throw new IOException("Not a maze file");
+        }
+        int version = Short.toUnsignedInt(fixed.getShort());
+        if (version != VERSION) throw new IOException("Unsupported maze file version " + version);
+        int compressionCode = fixed.get();
+        if (compressionCode < 0 || compressionCode >= TileCompression.values().length) {
+            throw new IOException("Unknown tile compression " + compressionCode);
+        }
+        compression = TileCompression.values()[compressionCode];
+        int flags = fixed.get();
+        boolean hasSeed = (flags & 1) != 0;
+        width = fixed.getInt();
+        height = fixed.getInt();
+        wordsPerRow = fixed.getInt();
+        rowsPerBlock = fixed.getInt();
+        long rawSeed = fixed.getLong();
+        seed = hasSeed ? rawSeed : null;
+        targetFilled = fixed.getLong();
+        placedFilled = fixed.getLong();
+        minRoomWidth = fixed.getInt();
+        minRoomHeight = fixed.getInt();
+        maxRoomWidth = fixed.getInt();
+        maxRoomHeight = fixed.getInt();
+        coverage = fixed.getDouble();
+        hallwayWidth = fixed.getInt();
+        roomCount = fixed.getInt();
+        long roomOffset = fixed.getLong();
+        planeOffset = fixed.getLong();
+
+        ByteBuffer names = read(channel, FIXED_HEADER, (int) (roomOffset - FIXED_HEADER));
+        algorithm = readString(names);
+        placement = PlacementMode.fromName(readString(names));
+        router = RouterMode.fromName(readString(names));
+        rng = RngMode.fromName(readString(names));
+
+        int blocks = (height + rowsPerBlock - 1) / rowsPerBlock;
+        blockOffsets = new long[blocks + 1];
+        long blockTableOffset = channel.size() - blockOffsets.length * 8L;
+        if (blockTableOffset < planeOffset) throw new IOException("Truncated maze file");
+        read(channel, blockTableOffset, blockOffsets.length * 8).asLongBuffer().get(blockOffsets);
+        // The table ends the file, so a cut-off file shows up here as offsets that do not add up.
+        if (blockOffsets[0] != 0 || blockOffsets[blocks] != blockTableOffset - planeOffset) {
+            throw new IOException("Corrupt or truncated maze file");
+        }
+        for (int b = 0; b < blocks; b++) {
+            if (blockOffsets[b + 1] < blockOffsets[b]) throw new IOException("Corrupt block table");
+        }
+
+        roomTable = new Windows(channel, roomOffset, ROOM_BYTES, roomCount);
+        // The edge table, if any, sits between the room table and the block table.
+        long edgeOffset = roomOffset + (long) roomCount * ROOM_BYTES;
+        edgeCount = (flags & 2) != 0 ? (int) read(channel, edgeOffset, 8).getLong() : 0;
+        edgeTable = new Windows(channel, edgeOffset + 8, EDGE_BYTES, edgeCount);
+        rawPlane = compression == TileCompression.NONE ? new Windows(channel, planeOffset, wordsPerRow * 8L, height) : null;
+    }
+
+    public static MazeFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MazeFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Tile get(int x, int y) {
+        return TILES[code(x, y)];
+    }
+
+    public int code(int x, int y) {
+        Objects.checkIndex(x, width);
+        Objects.checkIndex(y, height);
+        long word = word(y, x >>> 5);
+        return (int) (word >>> ((x & 31) << 1)) & 0b11;
+    }
+
+    public Room room(int index) {
+        Objects.checkIndex(index, roomCount);
+        return new Room(roomTable.getInt(index, 0), roomTable.getInt(index, 4), roomTable.getInt(index, 8), roomTable.getInt(index, 12));
+    }
+
+    public List<Room> rooms() {
+        List<Room> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) rooms.add(room(i));
+        return rooms;
+    }
+
+    public int[] edge(int index) {
+        Objects.checkIndex(index, edgeCount);
+        return new int[]{edgeTable.getInt(index, 0), edgeTable.getInt(index, 4)};
+    }
+
+    public List<int[]> edges() {
+        List<int[]> edges = new ArrayList<>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) edges.add(edge(i));
+        return edges;
+    }
+
+    public void copyRow(int y, TileGrid dst, int dstY) {
+        // Whole row of grid words into a grid of the same width.
+        Objects.checkIndex(y, height);
+        if (dst.width() != width) {
+            throw new IllegalArgumentException("Row width " + width + " does not match grid width " + dst.width());
+        }
+        for (int i = 0; i < wordsPerRow; i++) {
+            dst.setWord(dstY, i, word(y, i));
+        }
+    }
+
+    public TileGrid readGrid() {
+        // Loads the full plane; only for maps that fit in memory.
+        TileGrid grid = new TileGrid(width, height);
+        for (int y = 0; y < height; y++) copyRow(y, grid, y);
+        return grid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long word(int y, int wordIndex) {
+        if (rawPlane != null) return rawPlane.getLong(y, wordIndex * 8L);
+        synchronized (this) {
+            int block = y / rowsPerBlock;
+            if (block != cachedBlock) inflateBlock(block);
+            return cachedWords[(y - block * rowsPerBlock) * wordsPerRow + wordIndex];
+        }
+    }
+
+    private void inflateBlock(int block) {
+        int rows = Math.min(rowsPerBlock, height - block * rowsPerBlock);
+        long start = planeOffset + blockOffsets[block];
+        long length = blockOffsets[block + 1] - blockOffsets[block];
+        ByteBuffer out = ByteBuffer.allocate(rows * wordsPerRow * 8).order(ByteOrder.LITTLE_ENDIAN);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+            while (out.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(out) == 0 && inflater.needsInput()) break;
+            }
+        } catch (IOException | DataFormatException e) {
+            throw new IllegalStateException("Corrupt tile block " + block, e);
+        } finally {
+            inflater.end();
+        }
+        if (out.hasRemaining()) throw new IllegalStateException("Truncated tile block " + block);
+        out.flip();
+        long[] words = cachedWords != null && cachedWords.length >= rows * wordsPerRow ? cachedWords : new long[rowsPerBlock * wordsPerRow];
+        out.asLongBuffer().get(words, 0, rows * wordsPerRow);
+        cachedWords = words;
+        cachedBlock = block;
+    }
+
+    public static void write(MazeResult result, MazeConfig config, Path path, TileCompression compression) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(result, config, out, compression);
+        }
+    }
+
+    public static void write(MazeResult result, MazeConfig config, OutputStream out, TileCompression compression) throws IOException {
+        // One pass front to back, so out may be a socket or a pipe; out is left open.
+        TileGrid grid = result.grid;
+        List<Room> rooms = result.rooms;
+        List<int[]> edges = result.edges;
+        int wordsPerRow = grid.wordsPerRow();
+        int rowsPerBlock = (int) Math.max(1, BLOCK_BYTES / (wordsPerRow * 8L));
+        int blocks = (grid.height() + rowsPerBlock - 1) / rowsPerBlock;
+
+        byte[] algorithm = config.algorithm.getBytes(StandardCharsets.UTF_8);
+        byte[] placement = config.placement.cliName().getBytes(StandardCharsets.UTF_8);
+        byte[] router = config.router.cliName().getBytes(StandardCharsets.UTF_8);
+        byte[] rng = config.rng.cliName().getBytes(StandardCharsets.UTF_8);
+        long roomOffset = align8(FIXED_HEADER + 2L + algorithm.length + 2L + placement.length
+                + 2L + router.length + 2L + rng.length);
+        long edgeOffset = roomOffset + (long) rooms.size() * ROOM_BYTES;
+        long planeOffset = edges.isEmpty() ? edgeOffset : edgeOffset + 8 + (long) edges.size() * EDGE_BYTES;
+
+        ByteBuffer header = ByteBuffer.allocate((int) roomOffset).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putShort((short) VERSION).put((byte) compression.ordinal()).put((byte) ((config.seed != null ? 1 : 0) | (edges.isEmpty() ? 0 : 2)));
+        header.putInt(grid.width()).putInt(grid.height()).putInt(wordsPerRow).putInt(rowsPerBlock);
+        header.putLong(config.seed != null ? config.seed : 0).putLong(result.targetFilled).putLong(result.placedFilled);
+        header.putInt(config.minRoomWidth).putInt(config.minRoomHeight).putInt(config.maxRoomWidth).putInt(config.maxRoomHeight);
+        header.putDouble(config.coverage).putInt(config.hallwayWidth).putInt(rooms.size());
+        header.putLong(roomOffset).putLong(planeOffset);
+        header.putShort((short) algorithm.length).put(algorithm).putShort((short) placement.length).put(placement);
+        header.putShort((short) router.length).put(router).putShort((short) rng.length).put(rng);
+        out.write(header.array());
+
+        ByteBuffer buf = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        for (Room r : rooms) {
+            if (buf.remaining() < ROOM_BYTES) flush(out, buf);
+            buf.putInt(r.x).putInt(r.y).putInt(r.width).putInt(r.height);
+        }
+        if (!edges.isEmpty()) {
+            if (buf.remaining() < 8) flush(out, buf);
+            buf.putLong(edges.size());
+            for (int[] e : edges) {
+                if (buf.remaining() < EDGE_BYTES) flush(out, buf);
+                buf.putInt(e[0]).putInt(e[1]);
+            }
+        }
+        flush(out, buf);
+
+        // Plane first, block table after: deflated block sizes are only known once written.
+        long[] offsets = new long[blocks + 1];
+        long planeBytes = 0;
+        Deflater deflater = compression == TileCompression.DEFLATE ? new Deflater(Deflater.DEFAULT_COMPRESSION) : null;
+        try {
+            ByteBuffer raw = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, (long) rowsPerBlock * wordsPerRow * 8))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (int b = 0; b < blocks; b++) {
+                offsets[b] = planeBytes;
+                raw.clear();
+                int y1 = Math.min(grid.height(), (b + 1) * rowsPerBlock);
+                for (int y = b * rowsPerBlock; y < y1; y++) {
+                    for (int i = 0; i < wordsPerRow; i++) raw.putLong(grid.word(y, i));
+                }
+                if (deflater == null) {
+                    planeBytes += raw.position();
+                    flush(out, raw);
+                } else {
+                    raw.flip();
+                    deflater.reset();
+                    deflater.setInput(raw);
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        deflater.deflate(buf);
+                        if (!buf.hasRemaining() || deflater.finished()) {
+                            planeBytes += buf.position();
+                            flush(out, buf);
+                        }
+                    }
+                }
+            }
+            offsets[blocks] = planeBytes;
+        } finally {
+            if (deflater != null) deflater.end();
+        }
+
+        ByteBuffer table = ByteBuffer.allocate(offsets.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        table.asLongBuffer().put(offsets);
+        out.write(table.array());
+        out.flush();
+    }
+
+    private static long align8(long n) {
+        return (n + 7) & ~7L;
+    }
+
+    private static void flush(OutputStream out, ByteBuffer buf) throws IOException {
+        out.write(buf.array(), 0, buf.position());
+        buf.clear();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0) throw new IOException("Truncated maze file");
+        }
+        return buf.flip();
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A file region of fixed-size units mapped in windows of at most 1 GiB, each holding whole
+     * units, so regions beyond the 2 GiB limit of a single mapping stay addressable.
+     */
+    private static final class Windows {
+        private final long unitBytes;
+        private final long unitsPerWindow;
+        private final MappedByteBuffer[] windows;
+
+        Windows(FileChannel channel, long offset, long unitBytes, long units) throws IOException {
+            this.unitBytes = unitBytes;
+            this.unitsPerWindow = Math.max(1, WINDOW_BYTES / unitBytes);
+            int count = (int) ((units + unitsPerWindow - 1) / unitsPerWindow);
+            windows = new MappedByteBuffer[count];
+            for (int w = 0; w < count; w++) {
+                long first = w * unitsPerWindow;
+                long size = Math.min(unitsPerWindow, units - first) * unitBytes;
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * unitBytes, size);
+                windows[w].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        long getLong(long unit, long offsetInUnit) {
+            return windows[(int) (unit / unitsPerWindow)].getLong((int) ((unit % unitsPerWindow) * unitBytes + offsetInUnit));
+        }
+
+        int getInt(long unit, long offsetInUnit) {
+            return windows[(int) (unit / unitsPerWindow)].getInt((int) ((unit % unitsPerWindow) * unitBytes + offsetInUnit));
+        }
+    }
+}
@@ -3,34 +3,123 @@ package maze;
 import javax.imageio.ImageIO;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public final class MazeRenderer {
     private static final Color EMPTY = new Color(245, 245, 245);
     private static final Color ROOM = new Color(180, 180, 180);
     private static final Color HALLWAY = new Color(10, 10, 10);
+    // RGB per tile code, in Tile ordinal order.
+    private static final int[] PALETTE = {EMPTY.getRGB() & 0xFFFFFF, ROOM.getRGB() & 0xFFFFFF, HALLWAY.getRGB() & 0xFFFFFF};
 
     private MazeRenderer() {}
 
-    public static void renderPng(Tile[][] grid, String path) throws IOException {
-        if (grid.length == 0) throw new IllegalArgumentException("Grid is empty");
-        int height = grid.length;
-        int width = grid[0].length;
+    public static void renderPng(TileGrid grid, String path, RenderMode mode) throws IOException {
+        switch (mode) {
+            case IMAGEIO -> renderPng(grid, path);
+            case INDEXED -> renderIndexedPng(grid, path);
+            case STREAMING -> renderStreamingPng(grid, path);
+        }
+    }
+
+    public static void renderPng(TileGrid grid, String path) throws IOException {
+        ImageIO.write(toImage(grid), "PNG", new File(path));
+    }
+
+    private static BufferedImage toImage(TileGrid grid) {
+        int height = grid.height();
+        int width = grid.width();
         BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        // Write straight into the raster instead of going through setRGB per pixel.
+        int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
         for (int y = 0; y < height; y++) {
+            int offset = y * width;
             for (int x = 0; x < width; x++) {
-                img.setRGB(x, y, colorFor(grid[y][x]).getRGB());
+                pixels[offset + x] = PALETTE[grid.code(x, y)];
+            }
+        }
+        return img;
+    }
+
+    public static byte[] encodePng(TileGrid grid, RenderMode mode) throws IOException {
+        // The bytes renderPng would write for this mode, for callers that keep them.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writePng(grid, mode, out);
+        return out.toByteArray();
+    }
+
+    public static void writePng(TileGrid grid, RenderMode mode, OutputStream out) throws IOException {
+        // The same bytes onto a stream, e.g. a response body. The streaming mode holds one packed
+        // row and closes out when done; the other modes leave it open.
+        switch (mode) {
+            case IMAGEIO -> ImageIO.write(toImage(grid), "PNG", out);
+            case INDEXED -> PngEncoder.writeIndexed(grid, PALETTE, out);
+            case STREAMING -> {
+                try (PngRowWriter writer = new PngRowWriter(out, grid.width(), grid.height(), PALETTE)) {
+                    for (int y = 0; y < grid.height(); y++) {
+                        writer.writeRow(grid, y);
+                    }
+                }
+            }
+        }
+    }
+
+    public static void renderIndexedPng(TileGrid grid, String path) throws IOException {
+        // Same decoded colours as renderPng, written as a 2-bit palette image.
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(path)), 1 << 16)) {
+            PngEncoder.writeIndexed(grid, PALETTE, out);
+        }
+    }
+
+    public static void renderStreamingPng(TileGrid grid, String path) throws IOException {
+        // Single-threaded, row at a time: no image buffer, only one packed row in memory.
+        try (PngRowWriter writer = openRowWriter(path, grid.width(), grid.height())) {
+            for (int y = 0; y < grid.height(); y++) {
+                writer.writeRow(grid, y);
             }
         }
-        ImageIO.write(img, "PNG", new File(path));
     }
 
-    private static Color colorFor(Tile tile) {
-        return switch (tile) {
-            case ROOM -> ROOM;
-            case HALLWAY -> HALLWAY;
-            case EMPTY -> EMPTY;
-        };
+    public static int renderPngTiles(TileGrid grid, String dir, int tileSize, int x0, int y0, int x1, int y1) throws IOException {
+        // Write the tileSize x tileSize pieces of the map that overlap [x0, x1) x [y0, y1) as
+        // dir/tile-<tx>-<ty>.png, so an edit only re-encodes the tiles it touched; returns the tile count.
+        if (tileSize <= 0 || tileSize % TileGrid.TILES_PER_WORD != 0) {
+            throw new IllegalArgumentException("Tile size must be a positive multiple of " + TileGrid.TILES_PER_WORD + ": " + tileSize);
+        }
+        Path base = Files.createDirectories(Path.of(dir));
+        int tx0 = Math.max(x0, 0) / tileSize;
+        int ty0 = Math.max(y0, 0) / tileSize;
+        int tx1 = (Math.min(x1, grid.width()) + tileSize - 1) / tileSize;
+        int ty1 = (Math.min(y1, grid.height()) + tileSize - 1) / tileSize;
+        int written = 0;
+        for (int ty = ty0; ty < ty1; ty++) {
+            for (int tx = tx0; tx < tx1; tx++) {
+                TileGrid tile = grid.region(tx * tileSize, ty * tileSize, tileSize, tileSize);
+                Path path = base.resolve("tile-" + tx + "-" + ty + ".png");
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+                    PngEncoder.writeIndexed(tile, PALETTE, out);
+                }
+                written++;
+            }
+        }
+        return written;
+    }
+
+    public static PngRowWriter openRowWriter(String path, int width, int height) throws IOException {
+        // For producers that hand over rows as they finish them instead of a whole grid.
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(path)), 1 << 16);
+        try {
+            return new PngRowWriter(out, width, height, PALETTE);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
     }
 }
@@ -3,11 +3,31 @@ package maze;
 import java.util.List;
 
 public final class MazeResult {
-    public final Tile[][] grid;
+    public final TileGrid grid;
     public final List<Room> rooms;
+    public final List<int[]> edges; // spanning-tree edges as room index pairs; empty when not recorded
+    public final long targetFilled; // tiles the placement phase aimed to cover
+    public final long placedFilled; // tiles actually covered by rooms after placement
+    public final GenerationMetrics metrics;
+    public final Connectivity connectivity; // null unless analysed after generation
 
-    public MazeResult(Tile[][] grid, List<Room> rooms) {
+    public MazeResult(TileGrid grid, List<Room> rooms, long targetFilled, long placedFilled) {
+        this(grid, rooms, List.of(), targetFilled, placedFilled, GenerationMetrics.NONE);
+    }
+
+    public MazeResult(TileGrid grid, List<Room> rooms, List<int[]> edges, long targetFilled, long placedFilled,
+                      GenerationMetrics metrics) {
+        this(grid, rooms, edges, targetFilled, placedFilled, metrics, null);
+    }
+
+    public MazeResult(TileGrid grid, List<Room> rooms, List<int[]> edges, long targetFilled, long placedFilled,
+                      GenerationMetrics metrics, Connectivity connectivity) {
         this.grid = grid;
         this.rooms = rooms;
+        this.edges = edges;
+        this.targetFilled = targetFilled;
+        this.placedFilled = placedFilled;
+        this.metrics = metrics;
+        this.connectivity = connectivity;
     }
 }
@@ -0,0 +1,270 @@
+package maze;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Long-running generation server on the loopback interface.
+ *
+ * <p>{@code GET /maze} generates one maze and streams it back. Query parameters are the CLI
+ * options that shape a maze, without the leading dashes (e.g.
+ * {@code /maze?width=512&height=512&seed=7&router=astar}), applied on top of the options the
+ * server was started with. {@code format} selects {@code png} (the default), {@code maze} (a
+ * {@link MazeFile}) or {@code json} (room count, coverage and phase metrics). {@code GET /stats}
+ * reports request counts, latency percentiles over the most recent requests and the cache
+ * counters. Sizes are checked before anything is generated, and bad values get a 400. PNG and
+ * maze bodies are encoded straight onto the connection; PNGs use the streaming renderer unless
+ * the server was started with another {@code --renderer}. Each request runs on its own virtual
+ * thread; the generators are shared and stay warm across requests, and the server's
+ * {@link MazeCache}, if configured, serves repeated seeds. At most one maze per available
+ * processor is generated and sent at a time, so a burst of large requests queues instead of
+ * holding all of their grids at once.
+ *
+ * <p>Start-up options that only make sense for a single run (output files, batches, chunked
+ * generation) are refused rather than silently ignored.
+ */
+public final class MazeServer {
+    // Options a request may set; anything that names a file, changes the run mode or sizes the
+    // server's thread pools is refused.
+    private static final Set<String> PARAMS = Set.of("width", "height", "min-room-width", "min-room-height",
+            "max-room-width", "max-room-height", "coverage", "hallway-width", "algorithm", "seed", "placement",
+            "renderer", "router", "rng", "connectivity");
+    // Options the server would ignore, refused when it starts.
+    private static final Set<String> UNSUPPORTED = Set.of("--output", "--graph-output", "--graph-format", "--chunk-size",
+            "--batch-seeds", "--output-pattern", "--metrics-json", "--binary-output");
+    private static final long MAX_AREA = 1L << 28;
+    private static final int LATENCY_WINDOW = 4096;
+
+    private final String[] baseArgs;
+    private final Map<String, MazeGenerator> generators;
+    private final MazeCache cache;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits = new Semaphore(Runtime.getRuntime().availableProcessors());
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long requests;
+    private long errors;
+
+    public MazeServer(String[] baseArgs, Map<String, MazeGenerator> generators, MazeCache cache, int port) throws IOException {
+        for (String arg : baseArgs) {
+            if (UNSUPPORTED.contains(arg)) throw new IllegalArgumentException(arg + " is not supported with --serve");
+        }
+        // PNGs default to the streaming renderer, which encodes a row at a time onto the connection.
+        this.baseArgs = Arrays.asList(baseArgs).contains("--renderer") ? baseArgs.clone()
+                : concat(new String[]{"--renderer", "streaming"}, baseArgs);
+        this.generators = Map.copyOf(generators);
+        this.cache = cache;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/maze", this::handleMaze);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(executor);
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public void warmUp(int rounds) throws IOException {
+        // A few small mazes per generator, so the first real request runs compiled code.
+        MazeConfig base = MazeConfig.fromArgs(baseArgs);
+        for (int i = 0; i < rounds; i++) {
+            for (MazeGenerator generator : generators.values()) {
+                MazeConfig config = base.resized(256, 256, (long) i);
+                MazeRenderer.encodePng(generator.generate(config).grid, config.renderer);
+            }
+        }
+    }
+
+    public synchronized String statsJson() {
+        int window = (int) Math.min(requests, LATENCY_WINDOW);
+        long[] sorted = Arrays.copyOf(latencies, window);
+        Arrays.sort(sorted);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "{\"requests\":%d,\"errors\":%d,\"window\":%d,\"latencyMillis\":{", requests, errors, window));
+        double[] percentiles = {50, 90, 99, 100};
+        String[] names = {"p50", "p90", "p99", "max"};
+        for (int p = 0; p < percentiles.length; p++) {
+            if (p > 0) sb.append(',');
+            sb.append(String.format(Locale.ROOT, "\"%s\":%.3f", names[p], percentile(sorted, percentiles[p]) / 1e6));
+        }
+        sb.append('}');
+        if (cache != null) {
+            sb.append(String.format(Locale.ROOT, ",\"cache\":{\"memoryHits\":%d,\"diskHits\":%d,\"misses\":%d,\"evictions\":%d}",
+                    cache.memoryHits(), cache.diskHits(), cache.misses(), cache.evictions()));
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private void handleMaze(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "text/plain", "Only GET is supported\n".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            String format = "png";
+            MazeConfig config;
+            try {
+                List<String> args = new ArrayList<>(Arrays.asList(baseArgs));
+                String query = exchange.getRequestURI().getRawQuery();
+                if (query != null && !query.isEmpty()) {
+                    for (String pair : query.split("&")) {
+                        int eq = pair.indexOf('=');
+                        String key = decode(eq < 0 ? pair : pair.substring(0, eq));
+                        String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+                        if (key.equals("format")) {
+                            format = value;
+                        } else if (PARAMS.contains(key)) {
+                            args.add("--" + key);
+                            args.add(value);
+                        } else {
+                            throw new IllegalArgumentException("Unknown parameter: " + key);
+                        }
+                    }
+                }
+                config = MazeConfig.fromArgs(args.toArray(new String[0]));
+                if (config.area() > MAX_AREA) {
+                    throw new IllegalArgumentException("Maze too large for the server: " + config.width + "x" + config.height);
+                }
+                if (!format.equals("png") && !format.equals("maze") && !format.equals("json")) {
+                    throw new IllegalArgumentException("Unknown format: " + format);
+                }
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, "text/plain", (e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            MazeGenerator generator = generators.get(config.algorithm);
+            if (generator == null) {
+                send(exchange, 400, "text/plain", ("Unknown algorithm: " + config.algorithm + "\n").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                send(exchange, 503, "text/plain", "Server is shutting down\n".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            try {
+                MazeResult result;
+                byte[] png = null;
+                try {
+                    if (cache != null) {
+                        MazeCache.Entry entry = cache.get(generator, config);
+                        result = entry.result;
+                        png = entry.png;
+                    } else {
+                        result = generator.generate(config);
+                    }
+                } catch (RuntimeException e) {
+                    send(exchange, 500, "text/plain", ("Generation failed: " + e + "\n").getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                exchange.getResponseHeaders().set("X-Maze-Rooms", Integer.toString(result.rooms.size()));
+                switch (format) {
+                    case "png" -> {
+                        if (png != null) {
+                            send(exchange, 200, "image/png", png);
+                        } else {
+                            try (OutputStream out = stream(exchange, "image/png")) {
+                                MazeRenderer.writePng(result.grid, config.renderer, out);
+                            }
+                        }
+                    }
+                    case "maze" -> {
+                        try (OutputStream out = stream(exchange, "application/octet-stream")) {
+                            MazeFile.write(result, config, out, config.binaryCompression);
+                        }
+                    }
+                    default -> send(exchange, 200, "application/json", summaryJson(result, config).getBytes(StandardCharsets.UTF_8));
+                }
+                ok = true;
+            } finally {
+                permits.release();
+            }
+        } finally {
+            record(System.nanoTime() - start, ok);
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            send(exchange, 200, "application/json", statsJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static OutputStream stream(HttpExchange exchange, String contentType) throws IOException {
+        // A chunked 200 response whose body is encoded straight onto the connection; nothing
+        // holds the whole body. An encoding failure past this point can only cut the body short.
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, 0);
+        return exchange.getResponseBody();
+    }
+
+    private static String summaryJson(MazeResult result, MazeConfig config) {
+        long filled = result.grid.countFilled();
+        return String.format(Locale.ROOT,
+                "{\"algorithm\":\"%s\",\"seed\":%s,\"width\":%d,\"height\":%d,\"rooms\":%d,\"filled\":%d,\"coverage\":%.4f,\"metrics\":%s}%n",
+                config.algorithm, config.seed, config.width, config.height, result.rooms.size(), filled,
+                (double) filled / config.area(), result.metrics.toJson());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private synchronized void record(long nanos, boolean ok) {
+        // Latencies of the last LATENCY_WINDOW maze requests, in a ring.
+        latencies[(int) (requests % LATENCY_WINDOW)] = nanos;
+        requests++;
+        if (!ok) errors++;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        // Nearest-rank percentile; 0 before the first request.
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    private static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+}
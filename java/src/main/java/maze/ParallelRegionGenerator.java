@@ -0,0 +1,179 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates a grid of rectangular regions in parallel on a fork/join pool.
+ *
+ * <p>Each region runs the whole base pipeline (placement, spanning tree, carving, pruning) as an
+ * independent chunk of a {@link ChunkLayout} and copies its rows into the shared grid; region
+ * columns start on a grid word, so regions never write the same word. A sequential cross-region
+ * pass then merges the per-region trees with a minimum spanning tree over the borders: every
+ * region offers one candidate link to the next non-empty region to its right and below, the
+ * closest pair among the rooms nearest that border, and Kruskal keeps the shortest links that
+ * join two separate trees. The region layout depends only on the map and room sizes, never on
+ * the thread count, so output is deterministic for a given seed on any machine.
+ */
+public final class ParallelRegionGenerator implements MazeGenerator {
+    private static final int MIN_REGION = 256;
+
+    private final AbstractRoomMazeGenerator base;
+
+    public ParallelRegionGenerator(AbstractRoomMazeGenerator base) {
+        this.base = base;
+    }
+
+    @Override
+    public MazeResult generate(MazeConfig config) {
+        int threads = config.resolvedThreads();
+        long seed = config.seed != null ? config.seed : ThreadLocalRandom.current().nextLong();
+
+        TileGrid grid = new TileGrid(config.width, config.height);
+        // Generators keep all per-call state in a GenerationContext, so the tasks share one layout.
+        ChunkLayout layout = new ChunkLayout(config, base,
+                regionSize(config.width, config.maxRoomWidth, TileGrid.TILES_PER_WORD),
+                regionSize(config.height, config.maxRoomHeight, 1), seed);
+        int columns = layout.chunksX();
+        int regions = columns * layout.chunksY();
+        List<Callable<MazeResult>> tasks = new ArrayList<>(regions);
+        for (int r = 0; r < regions; r++) {
+            int cx = r % columns;
+            int cy = r / columns;
+            tasks.add(() -> {
+                ChunkLayout.Chunk chunk = layout.generateChunk(cx, cy);
+                TileGrid local = chunk.result.grid;
+                for (int y = 0; y < local.height(); y++) {
+                    local.copyRow(y, grid, chunk.x0, chunk.y0 + y);
+                }
+                return chunk.result;
+            });
+        }
+
+        List<MazeResult> parts = new ArrayList<>(regions);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Future<MazeResult> future : pool.invokeAll(tasks)) {
+                parts.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating regions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Region generation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Room> rooms = new ArrayList<>();
+        List<int[]> edges = new ArrayList<>();
+        List<GenerationMetrics> metrics = new ArrayList<>(regions);
+        int[] first = new int[regions];
+        long target = 0;
+        long placed = 0;
+        for (int r = 0; r < regions; r++) {
+            MazeResult part = parts.get(r);
+            int x0 = layout.chunkX0(r % columns);
+            int y0 = layout.chunkY0(r / columns);
+            first[r] = rooms.size();
+            for (int[] e : part.edges) {
+                edges.add(new int[]{e[0] + first[r], e[1] + first[r]});
+            }
+            for (Room room : part.rooms) {
+                rooms.add(new Room(room.x + x0, room.y + y0, room.width, room.height));
+            }
+            target += part.targetFilled;
+            placed += part.placedFilled;
+            metrics.add(part.metrics);
+        }
+
+        // Candidate links in scan order, so the stable sort breaks length ties deterministically.
+        List<Link> links = new ArrayList<>();
+        for (int r = 0; r < regions; r++) {
+            if (parts.get(r).rooms.isEmpty()) continue;
+            addLink(links, layout, parts, first, rooms, r, nextRegion(parts, r, 1, r - r % columns + columns));
+            addLink(links, layout, parts, first, rooms, r, nextRegion(parts, r, columns, regions));
+        }
+        links.sort(Comparator.comparingLong(link -> link.length));
+        DisjointSet trees = new DisjointSet(regions);
+        for (Link link : links) {
+            if (!trees.union(link.a, link.b)) continue;
+            // Bridges across any empty regions in between; the stitch is planned from the two
+            // regions' rooms and clipped to the span between them.
+            layout.stitchInto(grid, link.a % columns, link.a / columns, parts.get(link.a).rooms,
+                    link.b % columns, link.b / columns, parts.get(link.b).rooms);
+            edges.add(new int[]{link.roomA, link.roomB});
+        }
+        // A region whose row and column hold no other rooms has no candidate link; chain any such
+        // tree to the previous non-empty region with the base connector instead.
+        GenerationContext ctx = null;
+        int previous = -1;
+        for (int r = 0; r < regions; r++) {
+            if (parts.get(r).rooms.isEmpty()) continue;
+            if (previous >= 0 && trees.union(previous, r)) {
+                if (ctx == null) {
+                    ctx = new GenerationContext(config, grid, rooms, AbstractRoomMazeGenerator.newRandom(seed, config.rng));
+                }
+                base.connectPair(ctx, rooms.get(first[previous]), rooms.get(first[r]));
+                edges.add(new int[]{first[previous], first[r]});
+            }
+            previous = r;
+        }
+        // Phase metrics are summed over the regions; the merge pass is not attributed to a phase.
+        MazeResult result = new MazeResult(grid, rooms, edges, target, placed, GenerationMetrics.sum(metrics));
+        return config.connectivity == ConnectivityMode.OFF ? result : Connectivity.check(result, config, base, threads);
+    }
+
+    static int regionSize(int extent, int maxRoom, int align) {
+        // Equal parts of at least MIN_REGION tiles and never shorter than the largest room, so
+        // the layout never truncates room sizes; rounded up to align, and the whole extent if
+        // that leaves a single part.
+        int parts = Math.max(1, extent / Math.max(MIN_REGION, maxRoom));
+        long size = ((long) extent + parts - 1) / parts;
+        size = (size + align - 1) / align * align;
+        return (int) Math.max(1, Math.min(size, extent));
+    }
+
+    private static int nextRegion(List<MazeResult> parts, int r, int step, int end) {
+        // The first non-empty region after r going step at a time, or -1 before reaching end.
+        for (int n = r + step; n < end; n += step) {
+            if (!parts.get(n).rooms.isEmpty()) return n;
+        }
+        return -1;
+    }
+
+    private static void addLink(List<Link> links, ChunkLayout layout, List<MazeResult> parts, int[] first,
+                                List<Room> rooms, int a, int b) {
+        if (b < 0) return;
+        int columns = layout.chunksX();
+        int[] pair = layout.stitchRooms(a % columns, a / columns, parts.get(a).rooms,
+                b % columns, b / columns, parts.get(b).rooms);
+        Room ra = rooms.get(first[a] + pair[0]);
+        Room rb = rooms.get(first[b] + pair[1]);
+        long length = Math.abs((long) ra.centerX() - rb.centerX()) + Math.abs((long) ra.centerY() - rb.centerY());
+        links.add(new Link(a, b, first[a] + pair[0], first[b] + pair[1], length));
+    }
+
+    /** A candidate stitch between regions a and b joining the map rooms roomA and roomB. */
+    private static final class Link {
+        final int a;
+        final int b;
+        final int roomA;
+        final int roomB;
+        final long length;
+
+        Link(int a, int b, int roomA, int roomB, long length) {
+            this.a = a;
+            this.b = b;
+            this.roomA = roomA;
+            this.roomB = roomB;
+            this.length = length;
+        }
+    }
+}
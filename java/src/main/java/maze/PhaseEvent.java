@@ -0,0 +1,37 @@
+package maze;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** JFR event for one generation phase; recorded only while a recording enables it. */
+@Name(PhaseEvent.NAME)
+@Label("Maze Generation Phase")
+@Category("Maze")
+@Description("Wall time, allocation and work count of one placement, connection or pruning phase")
+final class PhaseEvent extends Event {
+    static final String NAME = "maze.GenerationPhase";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Count")
+    @Description("Placement attempts, carved edges or pruned tiles, depending on the phase")
+    long count;
+}
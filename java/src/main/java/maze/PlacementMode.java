@@ -0,0 +1,25 @@
+package maze;
+
+public enum PlacementMode {
+    // Blind random positions, rejected on overlap (the original behaviour).
+    RANDOM("random"),
+    // Positions drawn only from free rectangles large enough for the sampled room.
+    FREE_SPACE("free_space");
+
+    private final String cliName;
+
+    PlacementMode(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String cliName() {
+        return cliName;
+    }
+
+    public static PlacementMode fromName(String name) {
+        for (PlacementMode mode : values()) {
+            if (mode.cliName.equals(name)) return mode;
+        }
+        throw new IllegalArgumentException("Unknown placement mode: " + name);
+    }
+}
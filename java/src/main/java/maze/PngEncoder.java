@@ -0,0 +1,189 @@
+package maze;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a {@link TileGrid} as a two-bit palette PNG.
+ *
+ * <p>Palette indices are the tile codes, so a row is produced straight from the packed grid
+ * words without touching per-pixel colours. Rows are grouped into bands that are deflated on
+ * the common fork/join pool; each band is flushed to a byte boundary so the raw deflate
+ * outputs concatenate into one zlib stream, and the band checksums are combined afterwards.
+ */
+public final class PngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BAND_BYTES = 1 << 20;
+    private static final int ADLER_BASE = 65521;
+    // Reverses the four 2-bit groups of a byte: grid words keep the first tile in the low bits,
+    // PNG keeps the first pixel in the high bits.
+    private static final byte[] PIXEL_ORDER = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            PIXEL_ORDER[b] = (byte) (((b & 0x03) << 6) | ((b & 0x0C) << 2) | ((b & 0x30) >>> 2) | ((b & 0xC0) >>> 6));
+        }
+    }
+
+    private PngEncoder() {}
+
+    public static void writeIndexed(TileGrid grid, int[] paletteRgb, OutputStream out) throws IOException {
+        int rowBytes = rowBytes(grid.width());
+        int bandRows = Math.max(1, BAND_BYTES / (rowBytes + 1));
+        int bands = (grid.height() + bandRows - 1) / bandRows;
+        int window = Math.max(2, 2 * Runtime.getRuntime().availableProcessors());
+
+        DataOutputStream data = new DataOutputStream(out);
+        writeHeader(data, grid.width(), grid.height(), paletteRgb);
+        writeChunk(data, "IDAT", zlibHeader(), 2);
+
+        // Keep a bounded window of bands in flight and write them back in order.
+        Deque<CompletableFuture<Band>> inFlight = new ArrayDeque<>();
+        long adler = 1;
+        int next = 0;
+        while (next < bands || !inFlight.isEmpty()) {
+            while (next < bands && inFlight.size() < window) {
+                int y0 = next * bandRows;
+                int y1 = Math.min(grid.height(), y0 + bandRows);
+                boolean last = next == bands - 1;
+                inFlight.add(CompletableFuture.supplyAsync(() -> encodeBand(grid, y0, y1, last)));
+                next++;
+            }
+            Band band = join(inFlight.removeFirst());
+            adler = combineAdler(adler, band.adler, band.rawLength);
+            writeChunk(data, "IDAT", band.compressed, band.compressed.length);
+        }
+
+        byte[] trailer = {(byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler};
+        writeChunk(data, "IDAT", trailer, trailer.length);
+        writeChunk(data, "IEND", new byte[0], 0);
+        data.flush();
+    }
+
+    static int rowBytes(int width) {
+        return (width + 3) / 4;
+    }
+
+    static void packRow(TileGrid grid, int y, byte[] row, int offset) {
+        // Emit the filter byte (None, as recommended for palette images) and the packed pixels.
+        int rowBytes = rowBytes(grid.width());
+        row[offset++] = 0;
+        int end = offset + rowBytes;
+        for (int w = 0, words = grid.wordsPerRow(); w < words; w++) {
+            long word = grid.word(y, w);
+            for (int b = 0; b < 8 && offset < end; b++) {
+                row[offset++] = PIXEL_ORDER[(int) (word >>> (b << 3)) & 0xFF];
+            }
+        }
+    }
+
+    static void writeHeader(DataOutputStream data, int width, int height, int[] paletteRgb) throws IOException {
+        data.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, width);
+        putInt(ihdr, 4, height);
+        ihdr[8] = 2; // bit depth
+        ihdr[9] = 3; // colour type: palette
+        writeChunk(data, "IHDR", ihdr, ihdr.length);
+        byte[] plte = new byte[paletteRgb.length * 3];
+        for (int i = 0; i < paletteRgb.length; i++) {
+            plte[i * 3] = (byte) (paletteRgb[i] >>> 16);
+            plte[i * 3 + 1] = (byte) (paletteRgb[i] >>> 8);
+            plte[i * 3 + 2] = (byte) paletteRgb[i];
+        }
+        writeChunk(data, "PLTE", plte, plte.length);
+    }
+
+    static void writeChunk(DataOutputStream data, String type, byte[] payload, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(payload, 0, length);
+        data.writeInt(length);
+        data.write(typeBytes);
+        data.write(payload, 0, length);
+        data.writeInt((int) crc.getValue());
+    }
+
+    static long combineAdler(long adler1, long adler2, long len2) {
+        // Checksum of A||B from the checksums of A and B (zlib's adler32_combine).
+        long rem = len2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= (ADLER_BASE << 1)) sum2 -= (ADLER_BASE << 1);
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return sum1 | (sum2 << 16);
+    }
+
+    private static byte[] zlibHeader() {
+        // CM=8 (deflate), 32K window, default compression level; FCHECK makes it a multiple of 31.
+        return new byte[]{0x78, (byte) 0x9C};
+    }
+
+    private static Band encodeBand(TileGrid grid, int y0, int y1, boolean last) {
+        int stride = rowBytes(grid.width()) + 1;
+        byte[] raw = new byte[(y1 - y0) * stride];
+        for (int y = y0; y < y1; y++) {
+            packRow(grid, y, raw, (y - y0) * stride);
+        }
+        Adler32 adler = new Adler32();
+        adler.update(raw);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 8 + 64);
+        byte[] buf = new byte[64 * 1024];
+        try {
+            deflater.setInput(raw);
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.write(buf, 0, deflater.deflate(buf));
+                }
+            } else {
+                // SYNC_FLUSH ends on a byte boundary without marking the final block.
+                int n;
+                do {
+                    n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buf, 0, n);
+                } while (n == buf.length);
+            }
+        } finally {
+            deflater.end();
+        }
+        return new Band(compressed.toByteArray(), adler.getValue(), raw.length);
+    }
+
+    private static Band join(CompletableFuture<Band> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding PNG", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to encode PNG band", e.getCause());
+        }
+    }
+
+    private static void putInt(byte[] buf, int offset, int value) {
+        buf[offset] = (byte) (value >>> 24);
+        buf[offset + 1] = (byte) (value >>> 16);
+        buf[offset + 2] = (byte) (value >>> 8);
+        buf[offset + 3] = (byte) value;
+    }
+
+    private record Band(byte[] compressed, long adler, long rawLength) {}
+}
@@ -0,0 +1,88 @@
+package maze;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Streams a two-bit palette PNG one row at a time.
+ *
+ * <p>Only one packed row and one IDAT buffer are held, so memory stays O(width) however tall
+ * the image is. Rows must be written top to bottom, exactly {@code height} of them, before
+ * {@link #close()}.
+ */
+public final class PngRowWriter implements Closeable {
+    private static final int IDAT_BYTES = 256 * 1024;
+
+    private final DataOutputStream data;
+    private final int width;
+    private final int height;
+    private final byte[] row;
+    private final byte[] idat = new byte[IDAT_BYTES];
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private int idatFill;
+    private int rowsWritten;
+    private boolean closed;
+
+    public PngRowWriter(OutputStream out, int width, int height, int[] paletteRgb) throws IOException {
+        this.data = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[PngEncoder.rowBytes(width) + 1];
+        PngEncoder.writeHeader(data, width, height, paletteRgb);
+    }
+
+    public int rowsWritten() {
+        return rowsWritten;
+    }
+
+    public void writeRow(TileGrid grid, int y) throws IOException {
+        // Append grid row y as the next image row; the grid may be a band narrower in height only.
+        if (grid.width() != width) {
+            throw new IllegalArgumentException("Row width " + grid.width() + " does not match image width " + width);
+        }
+        if (rowsWritten == height) {
+            throw new IllegalStateException("All " + height + " rows already written");
+        }
+        PngEncoder.packRow(grid, y, row, 0);
+        deflater.setInput(row);
+        while (!deflater.needsInput()) {
+            drain();
+        }
+        rowsWritten++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (rowsWritten != height) {
+                throw new IllegalStateException("Wrote " + rowsWritten + " of " + height + " rows");
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            if (idatFill > 0) {
+                PngEncoder.writeChunk(data, "IDAT", idat, idatFill);
+            }
+            PngEncoder.writeChunk(data, "IEND", new byte[0], 0);
+            data.flush();
+        } finally {
+            deflater.end();
+            data.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        // Deflate into the IDAT buffer and emit a chunk whenever it fills up.
+        idatFill += deflater.deflate(idat, idatFill, idat.length - idatFill);
+        if (idatFill == idat.length) {
+            PngEncoder.writeChunk(data, "IDAT", idat, idatFill);
+            idatFill = 0;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Re-generates one rectangle of an existing maze in place.
+ *
+ * <p>Rooms touching the rectangle are removed and the rectangle gets fresh rooms from its own
+ * seed. Only spanning-tree edges whose corridors may cross the cleared area are dropped; the
+ * pieces of the tree left behind are joined again by new edges between the rooms around the
+ * edit, carved by the base generator's connector, and pruning starts from the border of the
+ * cleared area. Apart from one pass over the room and edge lists, the work follows the size of
+ * the edit rather than the map. The returned dirty bounds cover every tile that may have
+ * changed, so only those PNG tiles need re-rendering (see {@link MazeRenderer#renderPngTiles}).
+ */
+public final class RegionRegenerator {
+    private final AbstractRoomMazeGenerator generator;
+
+    public RegionRegenerator(AbstractRoomMazeGenerator generator) {
+        this.generator = generator;
+    }
+
+    public Edit regenerate(MazeResult maze, MazeConfig config, int x, int y, int w, int h, long seed) {
+        // Modifies maze.grid; the returned result shares it and replaces maze's room and edge lists.
+        TileGrid grid = maze.grid;
+        int n = maze.rooms.size();
+        if (n > 1 && maze.edges.isEmpty()) {
+            throw new IllegalArgumentException("Maze has no recorded spanning-tree edges to repair");
+        }
+        int x0 = Math.max(x, 0);
+        int y0 = Math.max(y, 0);
+        int x1 = (int) Math.min((long) x + w, grid.width());
+        int y1 = (int) Math.min((long) y + h, grid.height());
+        if (x0 >= x1 || y0 >= y1) {
+            throw new IllegalArgumentException("Region " + x + "," + y + " " + w + "x" + h + " lies outside the maze");
+        }
+        // Straight corridors stay within their rooms' bounds plus the connection point and half
+        // the width; A* routes may also wander as far as the router's search box reaches.
+        int margin = 1 + config.hallwayWidth;
+        if (config.router == RouterMode.ASTAR) margin += AStarRouter.searchMargin(config);
+        int[] dirty = {x0, y0, x1, y1};
+
+        // Rooms touching the region go; surviving rooms keep their order and come first.
+        int[] newIndex = new int[n];
+        List<Room> rooms = new ArrayList<>(n);
+        List<Room> removed = new ArrayList<>();
+        int[] cleared = {x0, y0, x1, y1};
+        for (int i = 0; i < n; i++) {
+            Room r = maze.rooms.get(i);
+            if (intersects(r.x, r.y, r.x + r.width, r.y + r.height, x0, y0, x1, y1)) {
+                newIndex[i] = -1;
+                removed.add(r);
+                include(cleared, r.x, r.y, r.x + r.width, r.y + r.height);
+            } else {
+                newIndex[i] = rooms.size();
+                rooms.add(r);
+            }
+        }
+        include(dirty, cleared[0], cleared[1], cleared[2], cleared[3]);
+
+        // Keep the edges whose corridors cannot touch the cleared area; the kept ends of the
+        // others are where the tree has to be joined again.
+        List<int[]> edges = new ArrayList<>(maze.edges.size());
+        BitSet frontier = new BitSet();
+        for (int[] e : maze.edges) {
+            int a = newIndex[e[0]];
+            int b = newIndex[e[1]];
+            Room ra = maze.rooms.get(e[0]);
+            Room rb = maze.rooms.get(e[1]);
+            int bx0 = Math.min(ra.x, rb.x) - margin;
+            int by0 = Math.min(ra.y, rb.y) - margin;
+            int bx1 = Math.max(ra.x + ra.width, rb.x + rb.width) + margin;
+            int by1 = Math.max(ra.y + ra.height, rb.y + rb.height) + margin;
+            if (a >= 0 && b >= 0 && !crossesCleared(bx0, by0, bx1, by1, x0, y0, x1, y1, cleared, removed)) {
+                edges.add(new int[]{a, b});
+                continue;
+            }
+            if (a >= 0) frontier.set(a);
+            if (b >= 0) frontier.set(b);
+            include(dirty, bx0, by0, bx1, by1);
+        }
+
+        GenerationContext ctx = new GenerationContext(config, grid, rooms, AbstractRoomMazeGenerator.newRandom(seed, config.rng));
+        GenerationMetrics.Recorder metrics = ctx.metrics;
+        metrics.begin();
+        // Rooms never overlap, so the placed count drops by exactly the removed rooms' area.
+        long placedFilled = maze.placedFilled;
+        grid.clearRect(x0, y0, x1 - x0, y1 - y0);
+        pushRing(ctx.frontier, grid, x0, y0, x1, y1);
+        for (Room r : removed) {
+            placedFilled -= (long) r.width * r.height;
+            grid.clearRect(r.x, r.y, r.width, r.height);
+            pushRing(ctx.frontier, grid, r.x, r.y, r.x + r.width, r.y + r.height);
+        }
+
+        // Fresh rooms on a grid the size of the region, from the edit's own seed.
+        MazeConfig regionConfig = config.resized(x1 - x0, y1 - y0, seed);
+        GenerationContext region = generator.newContext(regionConfig);
+        generator.placeRooms(region, (long) (regionConfig.area() * regionConfig.coverage));
+        int kept = rooms.size();
+        for (Room r : region.rooms) {
+            Room moved = new Room(r.x + x0, r.y + y0, r.width, r.height);
+            placedFilled += grid.fillEmpty(moved.x, moved.y, moved.width, moved.height, Tile.ROOM);
+            frontier.set(rooms.size());
+            rooms.add(moved);
+        }
+        metrics.placementAttempts = region.metrics.placementAttempts;
+        metrics.placementRejections = region.metrics.placementRejections;
+        metrics.end(GenerationMetrics.PLACEMENT, config);
+
+        metrics.begin();
+        if (kept > 0 && frontier.previousSetBit(kept - 1) < 0) {
+            // Nothing old borders the edit: attach the new rooms to the nearest old one.
+            frontier.set(nearestRoom(rooms, kept, (x0 + x1) / 2, (y0 + y1) / 2));
+        }
+        DisjointSet components = new DisjointSet(rooms.size());
+        for (int[] e : edges) components.union(e[0], e[1]);
+        int[] candidates = frontier.stream().toArray();
+        List<Room> candidateRooms = new ArrayList<>(candidates.length);
+        for (int i : candidates) candidateRooms.add(rooms.get(i));
+        List<int[]> joins = GraphUtil.buildRoomMst(candidateRooms);
+        // Shortest joins first, skipping any whose rooms are already connected.
+        joins.sort((p, q) -> Integer.compare(length(candidateRooms, p), length(candidateRooms, q)));
+        long carved = 0;
+        int added = 0;
+        for (int[] j : joins) {
+            int a = candidates[j[0]];
+            int b = candidates[j[1]];
+            if (!components.union(a, b)) continue;
+            Room ra = rooms.get(a);
+            Room rb = rooms.get(b);
+            carved += generator.connectPair(ctx, ra, rb);
+            edges.add(new int[]{a, b});
+            added++;
+            include(dirty, Math.min(ra.x, rb.x) - margin, Math.min(ra.y, rb.y) - margin,
+                    Math.max(ra.x + ra.width, rb.x + rb.width) + margin, Math.max(ra.y + ra.height, rb.y + rb.height) + margin);
+        }
+        metrics.edges = added;
+        metrics.tilesCarved = carved;
+        metrics.end(GenerationMetrics.CONNECTION, config);
+
+        metrics.begin();
+        // Only cut corridors can end in a dead end, and each one ends on a ring or a new segment.
+        metrics.tilesPruned = generator.removeDeadEnds(ctx);
+        metrics.end(GenerationMetrics.PRUNING, config);
+
+        long target = (long) (config.area() * config.coverage);
+        MazeResult result = new MazeResult(grid, rooms, edges, target, placedFilled, metrics.finish());
+        return new Edit(result,
+                Math.max(dirty[0], 0), Math.max(dirty[1], 0),
+                Math.min(dirty[2], grid.width()), Math.min(dirty[3], grid.height()),
+                removed.size(), rooms.size() - kept, added);
+    }
+
+    private static boolean crossesCleared(int bx0, int by0, int bx1, int by1, int x0, int y0, int x1, int y1,
+                                          int[] cleared, List<Room> removed) {
+        if (!intersects(bx0, by0, bx1, by1, cleared[0], cleared[1], cleared[2], cleared[3])) return false;
+        if (intersects(bx0, by0, bx1, by1, x0, y0, x1, y1)) return true;
+        for (Room r : removed) {
+            if (intersects(bx0, by0, bx1, by1, r.x, r.y, r.x + r.width, r.y + r.height)) return true;
+        }
+        return false;
+    }
+
+    private static boolean intersects(int ax0, int ay0, int ax1, int ay1, int bx0, int by0, int bx1, int by1) {
+        return ax0 < bx1 && bx0 < ax1 && ay0 < by1 && by0 < ay1;
+    }
+
+    private static void include(int[] bounds, int bx0, int by0, int bx1, int by1) {
+        bounds[0] = Math.min(bounds[0], bx0);
+        bounds[1] = Math.min(bounds[1], by0);
+        bounds[2] = Math.max(bounds[2], bx1);
+        bounds[3] = Math.max(bounds[3], by1);
+    }
+
+    private static void pushRing(LongStack stack, TileGrid grid, int x0, int y0, int x1, int y1) {
+        // The tiles just outside a cleared rectangle: where cut corridors now end.
+        for (int xx = Math.max(x0 - 1, 0); xx <= Math.min(x1, grid.width() - 1); xx++) {
+            if (y0 > 0) stack.push(TileGrid.pack(xx, y0 - 1));
+            if (y1 < grid.height()) stack.push(TileGrid.pack(xx, y1));
+        }
+        for (int yy = Math.max(y0, 0); yy < Math.min(y1, grid.height()); yy++) {
+            if (x0 > 0) stack.push(TileGrid.pack(x0 - 1, yy));
+            if (x1 < grid.width()) stack.push(TileGrid.pack(x1, yy));
+        }
+    }
+
+    private static int nearestRoom(List<Room> rooms, int count, int cx, int cy) {
+        int best = 0;
+        long bestDist = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            Room r = rooms.get(i);
+            long dist = Math.abs((long) r.centerX() - cx) + Math.abs((long) r.centerY() - cy);
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static int length(List<Room> rooms, int[] edge) {
+        Room a = rooms.get(edge[0]);
+        Room b = rooms.get(edge[1]);
+        return Math.abs(a.centerX() - b.centerX()) + Math.abs(a.centerY() - b.centerY());
+    }
+
+    /** Outcome of one edit: the updated maze and the map rectangle [x0, x1) x [y0, y1) it touched. */
+    public static final class Edit {
+        public final MazeResult result;
+        public final int x0;
+        public final int y0;
+        public final int x1;
+        public final int y1;
+        public final int roomsRemoved;
+        public final int roomsAdded;
+        public final int edgesAdded;
+
+        Edit(MazeResult result, int x0, int y0, int x1, int y1, int roomsRemoved, int roomsAdded, int edgesAdded) {
+            this.result = result;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.roomsRemoved = roomsRemoved;
+            this.roomsAdded = roomsAdded;
+            this.edgesAdded = edgesAdded;
+        }
+    }
+}
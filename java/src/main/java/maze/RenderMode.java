@@ -0,0 +1,27 @@
+package maze;
+
+public enum RenderMode {
+    // TYPE_INT_RGB BufferedImage encoded by ImageIO (the original output bytes).
+    IMAGEIO("imageio"),
+    // Two-bit indexed PNG, rows deflated in parallel bands.
+    INDEXED("indexed"),
+    // Two-bit indexed PNG streamed row by row; extra memory is O(width).
+    STREAMING("streaming");
+
+    private final String cliName;
+
+    RenderMode(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String cliName() {
+        return cliName;
+    }
+
+    public static RenderMode fromName(String name) {
+        for (RenderMode mode : values()) {
+            if (mode.cliName.equals(name)) return mode;
+        }
+        throw new IllegalArgumentException("Unknown renderer: " + name);
+    }
+}
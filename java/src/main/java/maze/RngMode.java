@@ -0,0 +1,25 @@
+package maze;
+
+public enum RngMode {
+    // One sequential java.util.Random per call: every seed reproduces its original maze.
+    LEGACY("legacy"),
+    // Stateless draws keyed by (seed, stream, index), independent of call order.
+    COUNTER("counter");
+
+    private final String cliName;
+
+    RngMode(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String cliName() {
+        return cliName;
+    }
+
+    public static RngMode fromName(String name) {
+        for (RngMode mode : values()) {
+            if (mode.cliName.equals(name)) return mode;
+        }
+        throw new IllegalArgumentException("Unknown RNG: " + name);
+    }
+}
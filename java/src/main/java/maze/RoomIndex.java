@@ -0,0 +1,117 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Uniform bucket grid over placed room rectangles.
+ *
+ * <p>Each room is registered in every bucket it touches, so an overlap query only tests the
+ * rooms filed under the handful of buckets covered by the candidate rectangle instead of
+ * reading every tile underneath it.
+ */
+public final class RoomIndex {
+    private static final int MAX_BUCKETS = 1 << 20;
+
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+
+    private int[] x0 = new int[16];
+    private int[] y0 = new int[16];
+    private int[] x1 = new int[16];
+    private int[] y1 = new int[16];
+    private int size;
+
+    public RoomIndex(int width, int height, int cellSize) {
+        int cell = Math.max(1, cellSize);
+        // Coarsen the buckets on huge maps so the directory itself stays small.
+        while ((long) ceilDiv(width, cell) * ceilDiv(height, cell) > MAX_BUCKETS) {
+            cell *= 2;
+        }
+        this.cellSize = cell;
+        this.cols = ceilDiv(width, cell);
+        this.rows = ceilDiv(height, cell);
+        this.buckets = new int[cols * rows][];
+        this.bucketSizes = new int[cols * rows];
+    }
+
+    public static RoomIndex forConfig(MazeConfig config) {
+        // Buckets about the size of the largest room keep each room in at most four buckets.
+        int cell = Math.max(Math.min(config.maxRoomWidth, config.width), Math.min(config.maxRoomHeight, config.height));
+        return new RoomIndex(config.width, config.height, cell);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean overlaps(int x, int y, int w, int h) {
+        // True if the rectangle shares at least one tile with an indexed room.
+        int rx1 = x + w - 1;
+        int ry1 = y + h - 1;
+        int bx0 = clampCol(x / cellSize);
+        int bx1 = clampCol(rx1 / cellSize);
+        int by0 = clampRow(y / cellSize);
+        int by1 = clampRow(ry1 / cellSize);
+        for (int by = by0; by <= by1; by++) {
+            for (int bx = bx0; bx <= bx1; bx++) {
+                int b = by * cols + bx;
+                int[] bucket = buckets[b];
+                for (int i = 0, n = bucketSizes[b]; i < n; i++) {
+                    int r = bucket[i];
+                    if (x0[r] <= rx1 && x <= x1[r] && y0[r] <= ry1 && y <= y1[r]) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void add(Room room) {
+        add(room.x, room.y, room.width, room.height);
+    }
+
+    public void add(int x, int y, int w, int h) {
+        if (size == x0.length) {
+            int cap = size * 2;
+            x0 = Arrays.copyOf(x0, cap);
+            y0 = Arrays.copyOf(y0, cap);
+            x1 = Arrays.copyOf(x1, cap);
+            y1 = Arrays.copyOf(y1, cap);
+        }
+        int r = size++;
+        x0[r] = x;
+        y0[r] = y;
+        x1[r] = x + w - 1;
+        y1[r] = y + h - 1;
+        int bx0 = clampCol(x / cellSize);
+        int bx1 = clampCol(x1[r] / cellSize);
+        int by0 = clampRow(y / cellSize);
+        int by1 = clampRow(y1[r] / cellSize);
+        for (int by = by0; by <= by1; by++) {
+            for (int bx = bx0; bx <= bx1; bx++) {
+                int b = by * cols + bx;
+                int[] bucket = buckets[b];
+                if (bucket == null) {
+                    bucket = buckets[b] = new int[4];
+                } else if (bucketSizes[b] == bucket.length) {
+                    bucket = buckets[b] = Arrays.copyOf(bucket, bucket.length * 2);
+                }
+                bucket[bucketSizes[b]++] = r;
+            }
+        }
+    }
+
+    private int clampCol(int c) {
+        return c < 0 ? 0 : Math.min(c, cols - 1);
+    }
+
+    private int clampRow(int r) {
+        return r < 0 ? 0 : Math.min(r, rows - 1);
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return Math.max(1, (a + b - 1) / b);
+    }
+}
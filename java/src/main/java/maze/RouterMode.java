@@ -0,0 +1,25 @@
+package maze;
+
+public enum RouterMode {
+    // Straight L-shaped corridors through anything but rooms (the original behaviour).
+    LSHAPE("lshape"),
+    // Weighted A* around rooms that prefers running along existing hallways.
+    ASTAR("astar");
+
+    private final String cliName;
+
+    RouterMode(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String cliName() {
+        return cliName;
+    }
+
+    public static RouterMode fromName(String name) {
+        for (RouterMode mode : values()) {
+            if (mode.cliName.equals(name)) return mode;
+        }
+        throw new IllegalArgumentException("Unknown router: " + name);
+    }
+}
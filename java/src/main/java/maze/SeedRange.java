@@ -0,0 +1,39 @@
+package maze;
+
+/** Inclusive range of seeds for batch runs, written {@code first..last} or as a single seed. */
+public final class SeedRange {
+    public final long first;
+    public final long last;
+
+    public SeedRange(long first, long last) {
+        if (last < first) {
+            throw new IllegalArgumentException("Seed range is empty: " + first + ".." + last);
+        }
+        this.first = first;
+        this.last = last;
+    }
+
+    public long count() {
+        // Saturates for the full long range, which no batch could finish anyway.
+        long count = last - first + 1;
+        return count <= 0 ? Long.MAX_VALUE : count;
+    }
+
+    public static SeedRange parse(String raw) {
+        int sep = raw.indexOf("..");
+        try {
+            if (sep < 0) {
+                long seed = Long.parseLong(raw.trim());
+                return new SeedRange(seed, seed);
+            }
+            return new SeedRange(Long.parseLong(raw.substring(0, sep).trim()), Long.parseLong(raw.substring(sep + 2).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid seed range (expected first..last): " + raw);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return first + ".." + last;
+    }
+}
@@ -1,6 +1,7 @@
 package maze;
 
 public enum Tile {
+    // Ordinals double as the two-bit codes stored by TileGrid, so EMPTY must stay first.
     EMPTY,
     ROOM,
     HALLWAY
@@ -0,0 +1,25 @@
+package maze;
+
+public enum TileCompression {
+    // Raw grid words: every tile is one mapped read away.
+    NONE("none"),
+    // Each block of rows deflated on its own; a lookup inflates (and caches) one block.
+    DEFLATE("deflate");
+
+    private final String cliName;
+
+    TileCompression(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String cliName() {
+        return cliName;
+    }
+
+    public static TileCompression fromName(String name) {
+        for (TileCompression mode : values()) {
+            if (mode.cliName.equals(name)) return mode;
+        }
+        throw new IllegalArgumentException("Unknown tile compression: " + name);
+    }
+}
@@ -0,0 +1,78 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Routes on hand-built grids: around rooms, along existing corridors, never into a sealed room. */
+class AStarRouterTest {
+    @Test
+    void routesAroundRooms() {
+        GenerationContext ctx = context(60, 40);
+        ctx.grid.fillEmpty(25, 5, 10, 30, Tile.ROOM);
+        long start = TileGrid.pack(10, 20);
+        long end = TileGrid.pack(50, 20);
+
+        assertTrue(ctx.router().route(ctx, start, end, 1) > 0);
+        for (int y = 5; y < 35; y++) {
+            for (int x = 25; x < 35; x++) assertEquals(Tile.ROOM, ctx.grid.get(x, y), x + "," + y);
+        }
+        assertTrue(hallwayPath(ctx.grid, start, end));
+    }
+
+    @Test
+    void followsExistingHallway() {
+        // Straight along the corridor only the five tiles missing at either end are new.
+        GenerationContext ctx = context(60, 40);
+        ctx.grid.fillEmpty(10, 20, 41, 1, Tile.HALLWAY);
+        long start = TileGrid.pack(5, 20);
+        long end = TileGrid.pack(55, 20);
+
+        assertEquals(10, ctx.router().route(ctx, start, end, 1));
+        assertTrue(hallwayPath(ctx.grid, start, end));
+    }
+
+    @Test
+    void walledInTargetIsNotCarved() {
+        GenerationContext ctx = context(60, 40);
+        ctx.grid.fillEmpty(40, 15, 9, 9, Tile.ROOM);
+        ctx.grid.clearRect(41, 16, 7, 7);
+        String before = Fingerprint.ofGrid(ctx.grid);
+
+        assertEquals(-1, ctx.router().route(ctx, TileGrid.pack(5, 5), TileGrid.pack(44, 19), 1));
+        assertEquals(before, Fingerprint.ofGrid(ctx.grid));
+    }
+
+    private static GenerationContext context(int width, int height) {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", Integer.toString(width),
+                "--height", Integer.toString(height), "--router", "astar"});
+        return new GenerationContext(config, new TileGrid(width, height), new ArrayList<>(), new Random(1));
+    }
+
+    private static boolean hallwayPath(TileGrid grid, long start, long end) {
+        // Breadth-first over HALLWAY tiles from start.
+        boolean[] seen = new boolean[grid.width() * grid.height()];
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        queue.add(start);
+        seen[TileGrid.unpackY(start) * grid.width() + TileGrid.unpackX(start)] = true;
+        while (!queue.isEmpty()) {
+            long p = queue.poll();
+            if (p == end) return true;
+            int x = TileGrid.unpackX(p), y = TileGrid.unpackY(p);
+            int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+            for (int[] s : steps) {
+                int nx = x + s[0], ny = y + s[1];
+                if (nx < 0 || ny < 0 || nx >= grid.width() || ny >= grid.height()) continue;
+                if (seen[ny * grid.width() + nx] || grid.get(nx, ny) != Tile.HALLWAY) continue;
+                seen[ny * grid.width() + nx] = true;
+                queue.add(TileGrid.pack(nx, ny));
+            }
+        }
+        return false;
+    }
+}
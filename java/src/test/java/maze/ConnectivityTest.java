@@ -0,0 +1,126 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Labels against a plain flood fill, room distances, and repair of mazes with stray rooms. */
+class ConnectivityTest {
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 5})
+    void labelsMatchFloodFill(int threads) {
+        Random random = new Random(threads);
+        for (int round = 0; round < 20; round++) {
+            TileGrid grid = new TileGrid(200, 150);
+            for (int y = 0; y < grid.height(); y++) {
+                for (int x = 0; x < grid.width(); x++) {
+                    if (random.nextInt(100) < 55) grid.set(x, y, Tile.HALLWAY);
+                }
+            }
+            List<Room> rooms = new ArrayList<>();
+            for (int y = 2; y + 4 < grid.height(); y += 15) {
+                for (int x = 2; x + 4 < grid.width(); x += 20) {
+                    rooms.add(new Room(x, y, 4, 3));
+                    for (int ry = y; ry < y + 3; ry++) {
+                        for (int rx = x; rx < x + 4; rx++) grid.set(rx, ry, Tile.ROOM);
+                    }
+                }
+            }
+
+            int[] label = floodFill(grid);
+            Connectivity report = Connectivity.analyze(grid, rooms, threads);
+            assertEquals(Arrays.stream(label).max().orElse(-1) + 1, report.components);
+            int[] roomLabel = rooms.stream().mapToInt(r -> label[r.y * grid.width() + r.x]).toArray();
+            assertEquals(Arrays.stream(roomLabel).distinct().count(), report.roomComponents);
+            for (int i = 0; i < rooms.size(); i++) {
+                for (int j = 0; j < rooms.size(); j++) {
+                    assertEquals(roomLabel[i] == roomLabel[j], report.roomComponent[i] == report.roomComponent[j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void distancesFollowCorridors() {
+        TileGrid grid = new TileGrid(20, 10);
+        List<Room> rooms = List.of(new Room(0, 0, 3, 3), new Room(10, 0, 3, 3), new Room(15, 6, 3, 3));
+        for (Room r : rooms) grid.fillEmpty(r.x, r.y, r.width, r.height, Tile.ROOM);
+        grid.fillEmpty(3, 1, 7, 1, Tile.HALLWAY);
+
+        Connectivity report = Connectivity.analyze(grid, rooms, 1);
+        assertFalse(report.connected());
+        assertArrayEquals(new int[]{2}, report.unreachableRooms);
+        assertArrayEquals(new int[]{0, 8, -1}, report.distancesFrom(0));
+    }
+
+    @Test
+    void repairJoinsStrayRooms() {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "60", "--height", "40",
+                "--connectivity", "repair", "--seed", "3"});
+        TileGrid grid = new TileGrid(60, 40);
+        List<Room> rooms = List.of(new Room(2, 2, 6, 5), new Room(40, 4, 5, 5), new Room(20, 30, 8, 6));
+        for (Room r : rooms) grid.fillEmpty(r.x, r.y, r.width, r.height, Tile.ROOM);
+        MazeResult cut = new MazeResult(grid, rooms, List.of(), 0, 0, GenerationMetrics.NONE);
+
+        MazeResult repaired = Connectivity.check(cut, config, new RoomsAndCorridorsGenerator(), 1);
+        assertTrue(repaired.connectivity.connected());
+        assertEquals(2, repaired.connectivity.repairedLinks);
+        assertEquals(2, repaired.edges.size());
+        assertEquals(1, Connectivity.analyze(repaired.grid, rooms, 1).roomComponents);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"rooms_and_corridors", "closest_wall", "parallel"})
+    void generatedMazesAreConnected(String algorithm) {
+        for (long seed = 1; seed <= 5; seed++) {
+            MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "240", "--height", "160",
+                    "--algorithm", algorithm, "--seed", Long.toString(seed), "--threads", "3", "--connectivity", "report"});
+            MazeGenerator generator = switch (algorithm) {
+                case "closest_wall" -> new ClosestWallConnectorGenerator();
+                case "parallel" -> new ParallelRegionGenerator(new RoomsAndCorridorsGenerator());
+                default -> new RoomsAndCorridorsGenerator();
+            };
+            MazeResult result = generator.generate(config);
+            assertTrue(result.connectivity.connected(), algorithm + " seed " + seed);
+            assertEquals(1, result.connectivity.roomComponents, algorithm + " seed " + seed);
+        }
+    }
+
+    private static int[] floodFill(TileGrid grid) {
+        // Plain 4-connected labelling of filled tiles; -1 for empty ones.
+        int width = grid.width();
+        int[] label = new int[width * grid.height()];
+        Arrays.fill(label, -1);
+        int next = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int start = 0; start < label.length; start++) {
+            if (label[start] >= 0 || grid.get(start % width, start / width) == Tile.EMPTY) continue;
+            label[start] = next;
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                int p = queue.poll();
+                int x = p % width, y = p / width;
+                int[] neighbours = {x > 0 ? p - 1 : -1, x + 1 < width ? p + 1 : -1, y > 0 ? p - width : -1,
+                        y + 1 < grid.height() ? p + width : -1};
+                for (int q : neighbours) {
+                    if (q < 0 || label[q] >= 0 || grid.get(q % width, q / width) == Tile.EMPTY) continue;
+                    label[q] = next;
+                    queue.add(q);
+                }
+            }
+            next++;
+        }
+        return label;
+    }
+}
@@ -0,0 +1,74 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Keyed draws depend only on (seed, stream, index, draw), and distinct keys give unrelated values. */
+class CounterRandomTest {
+    @Test
+    void drawsDependOnlyOnTheKey() {
+        CounterRandom random = new CounterRandom(99);
+        long[] first = draws(random.at(CounterRandom.CORRIDOR, 5), 4);
+        draws(random.at(CounterRandom.ROOM_ATTEMPT, 5), 7);
+        draws(random.at(CounterRandom.CORRIDOR, 6), 1);
+        assertArrayEquals(first, draws(random.at(CounterRandom.CORRIDOR, 5), 4));
+        assertArrayEquals(first, draws(new CounterRandom(99).at(CounterRandom.CORRIDOR, 5), 4));
+        for (int d = 0; d < first.length; d++) {
+            assertEquals(CounterRandom.value(99, CounterRandom.CORRIDOR, 5, d + 1), first[d]);
+        }
+    }
+
+    @Test
+    void streamsIndicesAndSeedsDoNotCollide() {
+        Set<Long> seen = new HashSet<>();
+        int count = 0;
+        for (long seed : new long[]{0, 1, 2}) {
+            for (int stream : new int[]{CounterRandom.ROOM_ATTEMPT, CounterRandom.CORRIDOR, CounterRandom.START_ROOM}) {
+                for (long index = 0; index < 5_000; index++) {
+                    seen.add(CounterRandom.value(seed, stream, index, 1));
+                    count++;
+                }
+            }
+        }
+        assertEquals(count, seen.size());
+    }
+
+    @Test
+    void neighbouringStreamsAreUncorrelated() {
+        // Each bit of the XOR of two independent values is set half the time: 32 bits on average.
+        int samples = 20_000;
+        long setBits = 0;
+        long sameSign = 0;
+        for (long index = 0; index < samples; index++) {
+            long a = CounterRandom.value(7, CounterRandom.ROOM_ATTEMPT, index, 1);
+            long b = CounterRandom.value(7, CounterRandom.CORRIDOR, index, 1);
+            setBits += Long.bitCount(a ^ b);
+            if ((a < 0) == (b < 0)) sameSign++;
+        }
+        assertEquals(32.0, (double) setBits / samples, 0.2);
+        assertEquals(0.5, (double) sameSign / samples, 0.02);
+    }
+
+    @Test
+    void boundedDrawsAreUniform() {
+        CounterRandom random = new CounterRandom(3);
+        int[] buckets = new int[10];
+        for (int index = 0; index < 20_000; index++) {
+            random.at(CounterRandom.ROOM_ATTEMPT, index);
+            for (int d = 0; d < 5; d++) buckets[random.nextInt(10)]++;
+        }
+        for (int b : buckets) assertTrue(Math.abs(b - 10_000) < 500, "bucket count " + b);
+    }
+
+    private static long[] draws(CounterRandom random, int count) {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) values[i] = random.nextLong();
+        return values;
+    }
+}
@@ -0,0 +1,49 @@
+package maze;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/** SHA-256 digests of generated mazes, for comparing runs and pinning output. */
+final class Fingerprint {
+    private Fingerprint() {
+    }
+
+    static String ofGrid(TileGrid grid) {
+        // Size, then every packed row word in order.
+        MessageDigest md = sha256();
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES * Math.max(grid.wordsPerRow(), 2));
+        md.update(buf.putInt(grid.width()).putInt(grid.height()).flip());
+        for (int y = 0; y < grid.height(); y++) {
+            buf.clear();
+            for (int i = 0; i < grid.wordsPerRow(); i++) buf.putLong(grid.word(y, i));
+            md.update(buf.flip());
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    static String of(MazeResult result) {
+        // The grid digest, then the rooms and spanning-tree edges in order.
+        MessageDigest md = sha256();
+        md.update(ofGrid(result.grid).getBytes());
+        ByteBuffer buf = ByteBuffer.allocate(4 * Integer.BYTES);
+        for (Room r : result.rooms) {
+            buf.clear();
+            md.update(buf.putInt(r.x).putInt(r.y).putInt(r.width).putInt(r.height).flip());
+        }
+        for (int[] e : result.edges) {
+            buf.clear();
+            md.update(buf.putInt(e[0]).putInt(e[1]).flip());
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Exact output of each graph format for a small hand-built graph, and a graph past one buffer. */
+class GraphExporterTest {
+    private static final List<Room> ROOMS = List.of(new Room(0, 0, 4, 2), new Room(10, 3, 2, 2), new Room(120, 40, 6, 8));
+    private static final List<int[]> EDGES = List.of(new int[]{0, 1}, new int[]{1, 2});
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void dot() throws IOException {
+        assertEquals("""
+                graph rooms {
+                  node [shape=box, style=filled, color=gray90];
+                  r0 [label="Room 0\\n(0,0) 4x2"];
+                  r1 [label="Room 1\\n(10,3) 2x2"];
+                  r2 [label="Room 2\\n(120,40) 6x8"];
+                  r0 -- r1;
+                  r1 -- r2;
+                }
+                """, text(GraphFormat.DOT));
+    }
+
+    @Test
+    void json() throws IOException {
+        assertEquals("""
+                {"rooms":[
+                {"id":0,"x":0,"y":0,"width":4,"height":2},
+                {"id":1,"x":10,"y":3,"width":2,"height":2},
+                {"id":2,"x":120,"y":40,"width":6,"height":8}
+                ],"edges":[
+                [0,1],
+                [1,2]
+                ]}
+                """, text(GraphFormat.JSON));
+    }
+
+    @Test
+    void csv() throws IOException {
+        assertEquals("""
+                source,target,source_x,source_y,target_x,target_y,length
+                0,1,2,1,11,4,12
+                1,2,11,4,123,44,152
+                """, text(GraphFormat.CSV));
+    }
+
+    @Test
+    void binaryCsr() throws IOException {
+        Path path = dir.resolve("graph.bin");
+        GraphExporter.write(ROOMS, EDGES, path, GraphFormat.BINARY);
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+
+        byte[] magic = new byte[4];
+        buf.get(magic);
+        assertArrayEquals(new byte[]{'M', 'Z', 'G', 'R'}, magic);
+        assertEquals(1, buf.getShort());
+        assertEquals(0, buf.getShort());
+        assertEquals(3, buf.getInt());
+        assertEquals(2, buf.getInt());
+        for (Room r : ROOMS) {
+            assertArrayEquals(new int[]{r.x, r.y, r.width, r.height}, new int[]{buf.getInt(), buf.getInt(), buf.getInt(), buf.getInt()});
+        }
+        assertArrayEquals(new int[]{0, 1, 3, 4}, ints(buf, 4));
+        assertArrayEquals(new int[]{1, 0, 2, 1}, ints(buf, 4));
+        assertEquals(0, buf.remaining());
+    }
+
+    @Test
+    void largeGraphSpansManyBuffers() throws IOException {
+        List<Room> rooms = new ArrayList<>();
+        List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            rooms.add(new Room(i * 3, i, 2, 2));
+            if (i > 0) edges.add(new int[]{i - 1, i});
+        }
+        Path path = dir.resolve("large.csv");
+        GraphExporter.write(rooms, edges, path, GraphFormat.CSV);
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(20_000, lines.size());
+        assertEquals("19998,19999,59995,19999,59998,20000,4", lines.get(19_999));
+    }
+
+    private String text(GraphFormat format) throws IOException {
+        Path path = dir.resolve("graph." + format);
+        GraphExporter.write(ROOMS, EDGES, path, format);
+        return Files.readString(path);
+    }
+
+    private static int[] ints(ByteBuffer buf, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) values[i] = buf.getInt();
+        return values;
+    }
+}
@@ -0,0 +1,56 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GraphUtilTest {
+    @Test
+    void mstMatchesQuadraticPrimWithLowestPairTies() {
+        // Centers on a coarse lattice, so most candidate edges tie on distance.
+        Random random = new Random(4);
+        for (int round = 0; round < 200; round++) {
+            int n = 2 + random.nextInt(120);
+            List<Room> rooms = new ArrayList<>();
+            for (int k = 0; k < n; k++) rooms.add(new Room(4 * random.nextInt(12), 4 * random.nextInt(12), 2, 2));
+
+            List<int[]> expected = quadraticPrim(rooms);
+            List<int[]> actual = GraphUtil.buildRoomMst(rooms);
+            assertEquals(expected.size(), actual.size());
+            for (int e = 0; e < expected.size(); e++) assertArrayEquals(expected.get(e), actual.get(e), "round " + round);
+        }
+    }
+
+    private static List<int[]> quadraticPrim(List<Room> rooms) {
+        // Every connected x remaining pair per step, keeping the first (i, j) at the minimum distance.
+        int n = rooms.size();
+        boolean[] connected = new boolean[n];
+        connected[0] = true;
+        List<int[]> edges = new ArrayList<>();
+        for (int step = 1; step < n; step++) {
+            int bestI = -1, bestJ = -1;
+            long bestDist = Long.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (!connected[i]) continue;
+                for (int j = 0; j < n; j++) {
+                    if (connected[j]) continue;
+                    Room a = rooms.get(i), b = rooms.get(j);
+                    long dist = Math.abs(a.centerX() - b.centerX()) + Math.abs(a.centerY() - b.centerY());
+                    if (dist < bestDist) {
+                        bestDist = dist;
+                        bestI = i;
+                        bestJ = j;
+                    }
+                }
+            }
+            connected[bestJ] = true;
+            edges.add(new int[]{bestI, bestJ});
+        }
+        return edges;
+    }
+}
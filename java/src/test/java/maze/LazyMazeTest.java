@@ -0,0 +1,52 @@
+package maze;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** On-demand cells must give exactly the tiles of a chunked run with the same seed and size. */
+class LazyMazeTest {
+    private static final int[] PALETTE = {0x000000, 0xFFFFFF, 0x808080};
+
+    @ParameterizedTest
+    @ValueSource(strings = {"rooms_and_corridors", "closest_wall"})
+    void matchesChunkedRun(String algorithm) throws IOException {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "300", "--height", "200",
+                "--algorithm", algorithm, "--seed", "5", "--chunk-size", "64"});
+        AbstractRoomMazeGenerator base = algorithm.equals("closest_wall")
+                ? new ClosestWallConnectorGenerator() : new RoomsAndCorridorsGenerator();
+
+        ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+        try (PngRowWriter out = new PngRowWriter(chunked, config.width, config.height, PALETTE)) {
+            new ChunkedMazeGenerator(base).generate(config, out);
+        }
+
+        // Small cache, so the full-map region also exercises eviction and rebuilding.
+        LazyMaze lazy = new LazyMaze(config, base, 64, 3);
+        TileGrid full = lazy.region(0, 0, config.width, config.height);
+        assertArrayEquals(chunked.toByteArray(), png(full));
+
+        for (int y = 0; y < config.height; y += 13) {
+            for (int x = 0; x < config.width; x += 11) assertEquals(full.get(x, y), lazy.tileAt(x, y), x + "," + y);
+        }
+        TileGrid window = lazy.region(70, 50, 90, 60);
+        for (int y = 0; y < 60; y++) {
+            for (int x = 0; x < 90; x++) assertEquals(full.get(70 + x, 50 + y), window.get(x, y));
+        }
+        assertTrue(lazy.hits() > 0);
+    }
+
+    private static byte[] png(TileGrid grid) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PngRowWriter out = new PngRowWriter(bytes, grid.width(), grid.height(), PALETTE)) {
+            for (int y = 0; y < grid.height(); y++) out.writeRow(grid, y);
+        }
+        return bytes.toByteArray();
+    }
+}
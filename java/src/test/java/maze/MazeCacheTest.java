@@ -0,0 +1,85 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MazeCacheTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void diskHitKeepsCarvedEdges() throws Exception {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "300", "--height", "200",
+                "--algorithm", "closest_wall", "--seed", "7", "--cache-dir", dir.toString()});
+        MazeGenerator generator = new ClosestWallConnectorGenerator();
+        MazeResult cold = new MazeCache(0, dir).get(generator, config).result;
+        // A fresh cache with no memory tier has to read the entry back from disk.
+        MazeCache cache = new MazeCache(0, dir);
+        MazeResult loaded = cache.get(generator, config).result;
+        assertEquals(1, cache.diskHits());
+        assertFalse(loaded.edges.isEmpty());
+        assertEquals(Fingerprint.of(cold), Fingerprint.of(loaded));
+    }
+
+    @Test
+    void keyIgnoresThreadCount() {
+        // Region layouts follow the map, not the pool, so every thread count shares one entry.
+        for (String algorithm : new String[]{"rooms_and_corridors", "parallel"}) {
+            MazeConfig auto = MazeConfig.fromArgs(new String[]{"--algorithm", algorithm, "--seed", "1"});
+            MazeConfig one = MazeConfig.fromArgs(new String[]{"--algorithm", algorithm, "--seed", "1", "--threads", "1"});
+            MazeConfig four = MazeConfig.fromArgs(new String[]{"--algorithm", algorithm, "--seed", "1", "--threads", "4"});
+            assertEquals(auto.cacheKey(), one.cacheKey());
+            assertEquals(auto.cacheKey(), four.cacheKey());
+        }
+    }
+
+    @Test
+    void editingAReturnedResultLeavesTheEntryAlone() throws Exception {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "200", "--height", "150", "--seed", "3"});
+        RoomsAndCorridorsGenerator generator = new RoomsAndCorridorsGenerator();
+        MazeCache cache = new MazeCache(64L << 20, null);
+        MazeCache.Entry first = cache.get(generator, config);
+        String expected = Fingerprint.of(first.result);
+        byte[] png = first.png.clone();
+
+        new RegionRegenerator(generator).regenerate(first.result, config, 40, 30, 60, 50, 9);
+        first.result.edges.clear();
+        first.png[0] ^= 1;
+        MazeCache.Entry second = cache.get(generator, config);
+        assertEquals(1, cache.memoryHits());
+        assertEquals(expected, Fingerprint.of(second.result));
+        assertArrayEquals(png, second.png);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 60, -300})
+    void unreadableDiskEntryIsRegenerated(int cut) throws Exception {
+        // Keep the first cut bytes of the maze file, or drop -cut bytes from its end: nothing, a
+        // partial header, or a partial tile plane.
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "300", "--height", "200", "--seed", "5"});
+        MazeGenerator generator = new RoomsAndCorridorsGenerator();
+        String expected = Fingerprint.of(new MazeCache(0, dir).get(generator, config).result);
+        Path maze = dir.resolve(MazeCache.hash(config.cacheKey()) + ".maze");
+        byte[] bytes = Files.readAllBytes(maze);
+        Files.write(maze, Arrays.copyOf(bytes, cut >= 0 ? cut : bytes.length + cut));
+
+        MazeCache cache = new MazeCache(0, dir);
+        assertEquals(expected, Fingerprint.of(cache.get(generator, config).result));
+        assertEquals(0, cache.diskHits());
+        assertEquals(1, cache.misses());
+        // The regenerated entry replaced the broken one on disk.
+        MazeCache again = new MazeCache(0, dir);
+        assertEquals(expected, Fingerprint.of(again.get(generator, config).result));
+        assertEquals(1, again.diskHits());
+    }
+}
@@ -0,0 +1,54 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MazeConfigTest {
+    @Test
+    void builderStartsFromCommandLineDefaults() {
+        MazeConfig parsed = MazeConfig.fromArgs(new String[]{"--seed", "3"});
+        MazeConfig built = MazeConfig.builder().seed(3L).build();
+        assertEquals(parsed.cacheKey(), built.cacheKey());
+        assertEquals(parsed.outputPattern, built.outputPattern);
+        assertEquals(parsed.servePort, built.servePort);
+    }
+
+    @Test
+    void unusableSizesAreRefused() {
+        for (String[] args : new String[][]{{"--width", "0"}, {"--height", "-1"}, {"--min-room-height", "0"},
+                {"--max-room-width", "1"}, {"--min-room-height", "30", "--max-room-height", "20"}, {"--hallway-width", "0"},
+                {"--threads", "-2"}}) {
+            assertThrows(IllegalArgumentException.class, () -> MazeConfig.fromArgs(args), String.join(" ", args));
+        }
+    }
+
+    @Test
+    void forSeedAndResizedKeepGenerationSettings() {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "640", "--router", "astar", "--rng", "counter",
+                "--threads", "4", "--connectivity", "report", "--graph-output", "g.dot", "--cache-mb", "16",
+                "--batch-seeds", "1..9", "--binary-compression", "deflate"});
+
+        MazeConfig one = config.forSeed(5, "maze-5.png");
+        assertEquals(5L, one.seed);
+        assertEquals("maze-5.png", one.outputPath);
+        assertEquals(4, one.threads);
+        assertEquals(ConnectivityMode.REPORT, one.connectivity);
+        assertEquals(TileCompression.DEFLATE, one.binaryCompression);
+        assertNull(one.graphOutputPath);
+        assertNull(one.batchSeeds);
+        assertEquals(0, one.cacheMegabytes);
+
+        MazeConfig part = config.resized(64, 32, 9L);
+        assertEquals(64, part.width);
+        assertEquals(32, part.height);
+        assertEquals(RouterMode.ASTAR, part.router);
+        assertEquals(RngMode.COUNTER, part.rng);
+        assertEquals(1, part.threads);
+        assertEquals(ConnectivityMode.OFF, part.connectivity);
+        assertEquals(TileCompression.NONE, part.binaryCompression);
+        assertEquals(-1, part.servePort);
+    }
+}
@@ -0,0 +1,110 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Writing a maze and opening the file again gives back the same tiles, rooms, edges and settings. */
+class MazeFileTest {
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(TileCompression.class)
+    void roundTrip(TileCompression compression) throws Exception {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "150", "--height", "90",
+                "--algorithm", "closest_wall", "--seed", "11", "--hallway-width", "2",
+                "--router", "astar", "--rng", "counter"});
+        MazeResult result = new ClosestWallConnectorGenerator().generate(config);
+        Path path = dir.resolve("maze.maze");
+        MazeFile.write(result, config, path, compression);
+
+        try (MazeFile file = MazeFile.open(path)) {
+            assertEquals(150, file.width);
+            assertEquals(90, file.height);
+            assertEquals(11L, file.seed);
+            assertEquals(compression, file.compression);
+            assertEquals("closest_wall", file.algorithm);
+            assertEquals(config.placement, file.placement);
+            assertEquals(RouterMode.ASTAR, file.router);
+            assertEquals(RngMode.COUNTER, file.rng);
+            assertEquals(config.coverage, file.coverage);
+            assertEquals(2, file.hallwayWidth);
+            assertEquals(result.targetFilled, file.targetFilled);
+            assertEquals(result.placedFilled, file.placedFilled);
+            assertEquals(Fingerprint.ofGrid(result.grid), Fingerprint.ofGrid(file.readGrid()));
+            for (int y = 0; y < file.height; y += 7) {
+                for (int x = 0; x < file.width; x += 5) assertEquals(result.grid.get(x, y), file.get(x, y));
+            }
+            assertEquals(result.rooms.size(), file.roomCount);
+            for (int i = 0; i < file.roomCount; i++) {
+                Room expected = result.rooms.get(i);
+                Room actual = file.room(i);
+                assertEquals(expected.x, actual.x);
+                assertEquals(expected.y, actual.y);
+                assertEquals(expected.width, actual.width);
+                assertEquals(expected.height, actual.height);
+            }
+            assertEquals(result.edges.size(), file.edgeCount);
+            for (int i = 0; i < file.edgeCount; i++) assertArrayEquals(result.edges.get(i), file.edge(i));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(TileCompression.class)
+    void streamMatchesFileAndCutFilesAreRejected(TileCompression compression) throws Exception {
+        // Block offsets end the file, so dropping any tail leaves a table that does not add up.
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "300", "--height", "200", "--seed", "6"});
+        MazeResult result = new RoomsAndCorridorsGenerator().generate(config);
+        Path path = dir.resolve("full.maze");
+        MazeFile.write(result, config, path, compression);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        MazeFile.write(result, config, streamed, compression);
+        byte[] bytes = Files.readAllBytes(path);
+        assertArrayEquals(bytes, streamed.toByteArray());
+
+        Path cut = dir.resolve("cut.maze");
+        for (int drop : new int[]{8, 100, bytes.length / 2, bytes.length - 40}) {
+            Files.write(cut, Arrays.copyOf(bytes, bytes.length - drop));
+            assertThrows(IOException.class, () -> MazeFile.open(cut).close(), "dropped " + drop);
+        }
+    }
+
+    @Test
+    void olderVersionIsRejected() throws Exception {
+        // Version 1 files carry no router or rng names.
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "40", "--height", "30", "--seed", "2"});
+        Path path = dir.resolve("v1.maze");
+        MazeFile.write(new RoomsAndCorridorsGenerator().generate(config), config, path, TileCompression.NONE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 0}), 4);
+        }
+        assertThrows(IOException.class, () -> MazeFile.open(path));
+    }
+
+    @ParameterizedTest
+    @EnumSource(TileCompression.class)
+    void unseededRunHasNoSeed(TileCompression compression) throws Exception {
+        MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "40", "--height", "30"});
+        Path path = dir.resolve("unseeded.maze");
+        MazeFile.write(new RoomsAndCorridorsGenerator().generate(config), config, path, compression);
+        try (MazeFile file = MazeFile.open(path)) {
+            assertNull(file.seed);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MazeServerTest {
+    private static final Map<String, MazeGenerator> GENERATORS = Map.of(
+            "rooms_and_corridors", new RoomsAndCorridorsGenerator(),
+            "closest_wall", new ClosestWallConnectorGenerator());
+
+    @Test
+    void refusesOptionsItWouldIgnore() {
+        for (String option : List.of("--chunk-size", "--batch-seeds", "--output")) {
+            String[] args = {"--serve", "0", option, "1"};
+            assertThrows(IllegalArgumentException.class, () -> new MazeServer(args, GENERATORS, null, 0), option);
+        }
+    }
+
+    @Test
+    void badSizesAndThreadsAreRefused() throws Exception {
+        MazeServer server = new MazeServer(new String[]{"--width", "200", "--height", "150"}, GENERATORS, null, 0);
+        server.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (String query : List.of("width=0", "height=-3", "min-room-width=0", "max-room-width=1",
+                    "hallway-width=0", "width=abc", "threads=2")) {
+                URI uri = URI.create("http://127.0.0.1:" + server.port() + "/maze?seed=1&" + query);
+                assertEquals(400, client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding()).statusCode(), query);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void streamedBodiesMatchDirectEncoding(@TempDir Path dir) throws Exception {
+        MazeServer server = new MazeServer(new String[]{"--width", "300", "--height", "200"}, GENERATORS, null, 0);
+        server.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            String base = "http://127.0.0.1:" + server.port() + "/maze?seed=4&algorithm=closest_wall";
+            MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "300", "--height", "200", "--seed", "4",
+                    "--algorithm", "closest_wall", "--renderer", "streaming"});
+            MazeResult expected = GENERATORS.get("closest_wall").generate(config);
+
+            byte[] png = client.send(HttpRequest.newBuilder(URI.create(base)).build(), HttpResponse.BodyHandlers.ofByteArray()).body();
+            assertArrayEquals(MazeRenderer.encodePng(expected.grid, RenderMode.STREAMING), png);
+
+            Path file = dir.resolve("served.maze");
+            client.send(HttpRequest.newBuilder(URI.create(base + "&format=maze")).build(), HttpResponse.BodyHandlers.ofFile(file));
+            try (MazeFile maze = MazeFile.open(file)) {
+                assertEquals(Fingerprint.ofGrid(expected.grid), Fingerprint.ofGrid(maze.readGrid()));
+                assertEquals(expected.edges.size(), maze.edgeCount);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void concurrentRequestsMatchDirectGeneration() throws Exception {
+        MazeServer server = new MazeServer(new String[]{"--width", "200", "--height", "150"}, GENERATORS, null, 0);
+        server.start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+            for (int seed = 0; seed < 24; seed++) {
+                URI uri = URI.create("http://127.0.0.1:" + server.port() + "/maze?format=maze&seed=" + seed);
+                responses.add(client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray()));
+            }
+            for (int seed = 0; seed < responses.size(); seed++) {
+                HttpResponse<byte[]> response = responses.get(seed).join();
+                assertEquals(200, response.statusCode());
+                MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "200", "--height", "150", "--seed", Integer.toString(seed)});
+                int rooms = GENERATORS.get("rooms_and_corridors").generate(config).rooms.size();
+                assertEquals(Integer.toString(rooms), response.headers().firstValue("X-Maze-Rooms").orElseThrow());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+}
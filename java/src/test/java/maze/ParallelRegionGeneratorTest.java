@@ -0,0 +1,48 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Region layout independent of the thread count, and one spanning tree across all regions. */
+class ParallelRegionGeneratorTest {
+    private static final MazeGenerator GENERATOR = new ParallelRegionGenerator(new RoomsAndCorridorsGenerator());
+
+    @Test
+    void regionSizeFollowsOnlyTheMap() {
+        assertEquals(300, ParallelRegionGenerator.regionSize(300, 200, TileGrid.TILES_PER_WORD));
+        assertEquals(352, ParallelRegionGenerator.regionSize(1000, 200, TileGrid.TILES_PER_WORD));
+        assertEquals(267, ParallelRegionGenerator.regionSize(4000, 20, 1));
+        assertEquals(1000, ParallelRegionGenerator.regionSize(1000, 600, 1));
+    }
+
+    @Test
+    void sameMazeForAnyThreadCount() {
+        for (long seed = 1; seed <= 3; seed++) {
+            String expected = Fingerprint.of(GENERATOR.generate(config(seed, 1)));
+            for (int threads : new int[]{2, 3, 8}) {
+                assertEquals(expected, Fingerprint.of(GENERATOR.generate(config(seed, threads))), "seed " + seed + ", threads " + threads);
+            }
+        }
+    }
+
+    @Test
+    void regionTreesMergeIntoOneSpanningTree() {
+        for (long seed = 1; seed <= 5; seed++) {
+            MazeResult result = GENERATOR.generate(config(seed, 4));
+            int n = result.rooms.size();
+            assertEquals(n - 1, result.edges.size(), "seed " + seed);
+            DisjointSet tree = new DisjointSet(n);
+            for (int[] e : result.edges) assertTrue(tree.union(e[0], e[1]), "cycle, seed " + seed);
+            assertEquals(1, Connectivity.analyze(result.grid, result.rooms, 1).roomComponents, "seed " + seed);
+        }
+    }
+
+    private static MazeConfig config(long seed, int threads) {
+        // 3 x 2 regions of small rooms.
+        return MazeConfig.fromArgs(new String[]{"--width", "800", "--height", "600", "--max-room-width", "30",
+                "--max-room-height", "30", "--algorithm", "parallel", "--seed", Long.toString(seed),
+                "--threads", Integer.toString(threads)});
+    }
+}
@@ -0,0 +1,39 @@
+package maze;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** An edit keeps the maze in one piece and leaves every tile outside its bounds alone. */
+class RegionRegeneratorTest {
+    @ParameterizedTest
+    @CsvSource({
+            "lshape, 60, 40, 50, 40",
+            "lshape, 0, 0, 80, 30",
+            "lshape, 150, 100, 60, 60",
+            "astar, 70, 50, 45, 35",
+    })
+    void editStaysConnectedAndLocal(String router, int x, int y, int w, int h) {
+        for (long seed = 1; seed <= 4; seed++) {
+            MazeConfig config = MazeConfig.fromArgs(new String[]{"--width", "200", "--height", "150",
+                    "--seed", Long.toString(seed), "--router", router, "--connectivity", "report"});
+            RoomsAndCorridorsGenerator generator = new RoomsAndCorridorsGenerator();
+            MazeResult maze = generator.generate(config);
+            assertEquals(1, maze.connectivity.roomComponents, "seed " + seed);
+            TileGrid before = new TileGrid(maze.grid.width(), maze.grid.height());
+            for (int row = 0; row < before.height(); row++) maze.grid.copyRow(row, before, 0, row);
+
+            RegionRegenerator.Edit edit = new RegionRegenerator(generator).regenerate(maze, config, x, y, w, h, 100 + seed);
+            MazeResult result = edit.result;
+            assertEquals(1, Connectivity.analyze(result.grid, result.rooms, 1).roomComponents, "seed " + seed);
+            assertEquals(result.rooms.size() - 1, result.edges.size(), "seed " + seed);
+            for (int ty = 0; ty < before.height(); ty++) {
+                for (int tx = 0; tx < before.width(); tx++) {
+                    if (tx >= edit.x0 && tx < edit.x1 && ty >= edit.y0 && ty < edit.y1) continue;
+                    assertEquals(before.get(tx, ty), result.grid.get(tx, ty), "seed " + seed + " at " + tx + "," + ty);
+                }
+            }
+        }
+    }
+}
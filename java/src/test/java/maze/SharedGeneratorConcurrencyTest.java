@@ -0,0 +1,63 @@
+package maze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** One generator instance shared by many threads must give the same mazes as sequential calls. */
+class SharedGeneratorConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int SEEDS = 48;
+
+    @Test
+    void roomsAndCorridors() throws Exception {
+        check(new RoomsAndCorridorsGenerator(), "rooms_and_corridors");
+    }
+
+    @Test
+    void closestWall() throws Exception {
+        check(new ClosestWallConnectorGenerator(), "closest_wall");
+    }
+
+    @Test
+    void aStarRouterAndCounterRng() throws Exception {
+        check(new RoomsAndCorridorsGenerator(), "rooms_and_corridors", "--router", "astar", "--rng", "counter");
+    }
+
+    @Test
+    void parallelRegions() throws Exception {
+        check(new ParallelRegionGenerator(new RoomsAndCorridorsGenerator()), "parallel", "--threads", "2");
+    }
+
+    private static void check(MazeGenerator generator, String algorithm, String... extra) throws Exception {
+        List<MazeConfig> configs = new ArrayList<>();
+        for (int seed = 0; seed < SEEDS; seed++) {
+            List<String> args = new ArrayList<>(List.of("--width", "160", "--height", "120",
+                    "--algorithm", algorithm, "--seed", Integer.toString(seed)));
+            args.addAll(List.of(extra));
+            configs.add(MazeConfig.fromArgs(args.toArray(new String[0])));
+        }
+        List<String> expected = new ArrayList<>();
+        for (MazeConfig config : configs) expected.add(Fingerprint.of(generator.generate(config)));
+
+        // Every seed twice, interleaved, so calls with different seeds overlap on the instance.
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int round = 0; round < 2; round++) {
+                for (MazeConfig config : configs) futures.add(pool.submit(() -> Fingerprint.of(generator.generate(config))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(expected.get(i % SEEDS), futures.get(i).get(), "seed " + (i % SEEDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}